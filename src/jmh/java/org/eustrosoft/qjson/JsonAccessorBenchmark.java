@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field access strategies of {@link JsonAccessor} (package-private, hence the package):
+ * reflection vs MethodHandles, boxed get()/set() vs primitive getLong()/setLong().
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonAccessorBenchmark {
+
+    public static class Sample {
+        private Integer boxed = 1;
+        private int primitive = 1;
+    }
+
+    @Param({"REFLECTION", "METHOD_HANDLE"})
+    public String strategy;
+
+    private Sample sample;
+    private JsonAccessor boxed;
+    private JsonAccessor primitive;
+    private long counter;
+
+    @Setup
+    public void setup() throws Exception {
+        int s = strategy.equals("REFLECTION") ? JsonAccessor.STRATEGY_REFLECTION : JsonAccessor.STRATEGY_METHOD_HANDLE;
+        sample = new Sample();
+        boxed = JsonAccessor.of(accessible(Sample.class.getDeclaredField("boxed")), s);
+        primitive = JsonAccessor.of(accessible(Sample.class.getDeclaredField("primitive")), s);
+    }
+
+    private static java.lang.reflect.Field accessible(java.lang.reflect.Field field) {
+        field.setAccessible(true);
+        return field;
+    }
+
+    @Benchmark
+    public Object getBoxed() {
+        return boxed.get(sample);
+    }
+
+    @Benchmark
+    public void setBoxed() {
+        boxed.set(sample, (int) ++counter & 127); // cached Integer, measures the access only
+    }
+
+    @Benchmark
+    public Object getPrimitiveBoxed() {
+        return primitive.get(sample);
+    }
+
+    @Benchmark
+    public long getPrimitive() {
+        return primitive.getLong(sample);
+    }
+
+    @Benchmark
+    public void setPrimitive() {
+        primitive.setLong(sample, ++counter);
+    }
+}
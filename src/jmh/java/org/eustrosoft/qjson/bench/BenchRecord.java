@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import java.util.List;
+
+/**
+ * Binding target for the {@link org.eustrosoft.qjson.JsonParser} benchmarks, see {@link Corpus#generateRecord}.
+ */
+public class BenchRecord {
+    private Integer id;
+    private String name;
+    private Boolean active;
+    private Double score;
+    private List<String> tags;
+    private List<Long> values;
+    private BenchRecord child;
+    private List<BenchRecord> children;
+}
@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.annotations.JsonCodegen;
+
+import java.util.List;
+
+/**
+ * {@link BenchRecord} with generated codec (fields are package-private for it).
+ */
+@JsonCodegen
+public class CodegenRecord {
+    Integer id;
+    String name;
+    Boolean active;
+    Double score;
+    List<String> tags;
+    List<Long> values;
+    CodegenRecord child;
+    List<CodegenRecord> children;
+}
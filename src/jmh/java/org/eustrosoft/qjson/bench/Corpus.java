@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import java.util.Random;
+
+/**
+ * Deterministic JSON documents used by the benchmarks.
+ * Every document is generated from a fixed seed, so numbers from different runs are comparable.
+ */
+public final class Corpus {
+    private static final long SEED = 20240101L;
+    private static final String[] WORDS = {
+            "alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta",
+            "iota", "kappa", "lambda", "mu", "nu", "xi", "omicron", "pi"
+    };
+
+    public enum Shape {
+        SMALL,   // typical API payload, ~1KB
+        DEEP,    // objects nested DEEP_LEVELS levels down
+        WIDE,    // one object with WIDE_KEYS keys
+        NUMERIC, // big array of longs and doubles
+        STRINGS, // big array of strings with escapes
+        SERIES   // time series: array of long timestamps and array of double values
+    }
+
+    public static final int DEEP_LEVELS = 64;
+    public static final int WIDE_KEYS = 1000;
+    public static final int NUMERIC_ITEMS = 100000;
+    public static final int STRING_ITEMS = 20000;
+    public static final int RECORDS = 200;
+
+    private Corpus() {
+    }
+
+    public static String generate(Shape shape) {
+        Random rnd = new Random(SEED);
+        StringBuilder sb = new StringBuilder();
+        switch (shape) {
+            case SMALL:
+                appendRecord(sb, rnd, 0);
+                break;
+            case DEEP:
+                for (int i = 0; i < DEEP_LEVELS; i++) {
+                    sb.append("{\"level\":").append(i).append(",\"name\":\"").append(word(rnd)).append("\",\"child\":");
+                }
+                sb.append("null");
+                for (int i = 0; i < DEEP_LEVELS; i++) sb.append('}');
+                break;
+            case WIDE:
+                sb.append('{');
+                for (int i = 0; i < WIDE_KEYS; i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append("\"key").append(i).append("\":");
+                    switch (i % 3) {
+                        case 0:
+                            sb.append(rnd.nextInt(100000));
+                            break;
+                        case 1:
+                            sb.append('"').append(word(rnd)).append('"');
+                            break;
+                        default:
+                            sb.append(rnd.nextBoolean());
+                    }
+                }
+                sb.append('}');
+                break;
+            case NUMERIC:
+                sb.append('[');
+                for (int i = 0; i < NUMERIC_ITEMS; i++) {
+                    if (i > 0) sb.append(',');
+                    if ((i & 1) == 0) sb.append(rnd.nextLong() >> 16);
+                    else sb.append(rnd.nextDouble() * 1000000.0);
+                }
+                sb.append(']');
+                break;
+            case SERIES:
+                long time = 1704067200000L;
+                sb.append("{\"t\":[");
+                for (int i = 0; i < NUMERIC_ITEMS / 2; i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(time += 1000 + rnd.nextInt(10));
+                }
+                sb.append("],\"v\":[");
+                for (int i = 0; i < NUMERIC_ITEMS / 2; i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append(rnd.nextInt(1000000) / 100.0); // measured with 2 decimals
+                }
+                sb.append("]}");
+                break;
+            case STRINGS:
+                sb.append('[');
+                for (int i = 0; i < STRING_ITEMS; i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append('"');
+                    int words = 3 + rnd.nextInt(12);
+                    for (int w = 0; w < words; w++) {
+                        if (w > 0) sb.append(rnd.nextInt(10) == 0 ? "\\n" : " ");
+                        sb.append(word(rnd));
+                        if (rnd.nextInt(20) == 0) sb.append("\\\"quoted\\\"");
+                    }
+                    sb.append('"');
+                }
+                sb.append(']');
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(shape));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Document matching {@link BenchRecord}: SMALL is one record, DEEP is a chain of
+     * children, WIDE is a record with {@link #RECORDS} children.
+     */
+    public static String generateRecord(Shape shape) {
+        Random rnd = new Random(SEED);
+        StringBuilder sb = new StringBuilder();
+        switch (shape) {
+            case SMALL:
+                appendRecord(sb, rnd, 0);
+                break;
+            case DEEP:
+                appendRecord(sb, rnd, DEEP_LEVELS / 2);
+                break;
+            case WIDE:
+                sb.append("{\"id\":1,\"name\":\"root\",\"children\":[");
+                for (int i = 0; i < RECORDS; i++) {
+                    if (i > 0) sb.append(',');
+                    appendRecord(sb, rnd, 0);
+                }
+                sb.append("]}");
+                break;
+            default:
+                throw new IllegalArgumentException(String.valueOf(shape));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Top-level array of count {@link BenchRecord} records, like a nightly import document.
+     */
+    public static String generateRecords(int count) {
+        Random rnd = new Random(SEED);
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            appendRecord(sb, rnd, 0);
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * count {@link BenchRecord} records, one per line (NDJSON)
+     */
+    public static String generateLines(int count) {
+        Random rnd = new Random(SEED);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            appendRecord(sb, rnd, 0);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendRecord(StringBuilder sb, Random rnd, int depth) {
+        sb.append("{\"id\":").append(rnd.nextInt(1000000));
+        sb.append(",\"name\":\"").append(word(rnd)).append(' ').append(word(rnd)).append('"');
+        sb.append(",\"active\":").append(rnd.nextBoolean());
+        sb.append(",\"score\":").append(rnd.nextInt(100000) / 100.0);
+        sb.append(",\"tags\":[");
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(word(rnd)).append('"');
+        }
+        sb.append("],\"values\":[");
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(rnd.nextInt(10000));
+        }
+        sb.append(']');
+        if (depth > 0) {
+            sb.append(",\"child\":");
+            appendRecord(sb, rnd, depth - 1);
+        }
+        sb.append('}');
+    }
+
+    private static String word(Random rnd) {
+        return WORDS[rnd.nextInt(WORDS.length)];
+    }
+}
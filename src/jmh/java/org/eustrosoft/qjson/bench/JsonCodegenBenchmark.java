@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state {@link JsonParser} with reflection ({@link BenchRecord}) vs generated codec
+ * ({@link CodegenRecord}), see {@link JsonCodegenFirstCallBenchmark} for the first call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodegenBenchmark {
+
+    @Param({"SMALL", "DEEP", "WIDE"})
+    public Corpus.Shape shape;
+
+    private JsonParser parser;
+    private String json;
+    private BenchRecord record;
+    private CodegenRecord codegenRecord;
+
+    @Setup
+    public void setup() throws Exception {
+        parser = new JsonParser();
+        json = Corpus.generateRecord(shape);
+        record = parser.parseJson(BenchRecord.class, json);
+        codegenRecord = parser.parseJson(CodegenRecord.class, json);
+    }
+
+    @Benchmark
+    public BenchRecord parseJsonReflection() throws Exception {
+        return parser.parseJson(BenchRecord.class, json);
+    }
+
+    @Benchmark
+    public CodegenRecord parseJsonCodegen() throws Exception {
+        return parser.parseJson(CodegenRecord.class, json);
+    }
+
+    @Benchmark
+    public String parseObjectReflection() throws Exception {
+        return parser.parseObject(record);
+    }
+
+    @Benchmark
+    public String parseObjectCodegen() throws Exception {
+        return parser.parseObject(codegenRecord);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First parse and serialization of a record in a fresh JVM: reflection ({@link BenchRecord}) builds
+ * the bind plan with field accessors, generated codec ({@link CodegenRecord}) only loads its class.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class JsonCodegenFirstCallBenchmark {
+
+    private JsonParser parser;
+    private String json;
+
+    @Setup
+    public void setup() {
+        parser = new JsonParser();
+        json = Corpus.generateRecord(Corpus.Shape.SMALL);
+    }
+
+    @Benchmark
+    public String reflection() throws Exception {
+        return parser.parseObject(parser.parseJson(BenchRecord.class, json));
+    }
+
+    @Benchmark
+    public String codegen() throws Exception {
+        return parser.parseObject(parser.parseJson(CodegenRecord.class, json));
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflection binding ({@link JsonParser#parseJson}) and serialization ({@link JsonParser#parseObject},
+ * {@link JsonParser#writeObject}, {@link JsonParser#parseCollection}) of {@link BenchRecord}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonParserBenchmark {
+
+    @Param({"SMALL", "DEEP", "WIDE"})
+    public Corpus.Shape shape;
+
+    private JsonParser parser;
+    private String json;
+    private BenchRecord record;
+    private List<BenchRecord> records;
+    private StringBuilder out;
+
+    @Setup
+    public void setup() throws Exception {
+        parser = new JsonParser();
+        json = Corpus.generateRecord(shape);
+        record = parser.parseJson(BenchRecord.class, json);
+        String one = Corpus.generateRecord(Corpus.Shape.SMALL);
+        records = new ArrayList<>();
+        for (int i = 0; i < Corpus.RECORDS; i++) {
+            records.add(parser.parseJson(BenchRecord.class, one));
+        }
+        out = new StringBuilder();
+    }
+
+    @Benchmark
+    public BenchRecord parseJson() throws Exception {
+        return parser.parseJson(BenchRecord.class, json);
+    }
+
+    @Benchmark
+    public String parseObject() throws Exception {
+        return parser.parseObject(record);
+    }
+
+    @Benchmark
+    public StringBuilder writeObject() throws Exception {
+        out.setLength(0); // reused buffer: serialization itself creates no text
+        parser.writeObject(record, out);
+        return out;
+    }
+
+    @Benchmark
+    public String parseCollection() throws Exception {
+        return parser.parseCollection(records);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric arrays of {@link Corpus.Shape#SERIES}: packed {@link QJson} nodes (parsing, writing,
+ * getDoubleArray() vs getItem() of every item) and binding to primitive arrays vs boxed lists.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumericArrayBenchmark {
+
+    public static class Series {
+        public long[] t;
+        public double[] v;
+    }
+
+    public static class BoxedSeries {
+        public List<Long> t;
+        public List<Double> v;
+    }
+
+    private JsonParser parser;
+    private String json;
+    private QJson values;
+
+    @Setup
+    public void setup() throws IOException {
+        parser = new JsonParser();
+        json = Corpus.generate(Corpus.Shape.SERIES);
+        QJson tree = new QJson();
+        tree.parseJSONString(json);
+        values = tree.getItemQJson("v");
+    }
+
+    @Benchmark
+    public QJson parseJSONString() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONString(json);
+        return q;
+    }
+
+    @Benchmark
+    public StringWriter writeJSONString() throws IOException {
+        StringWriter out = new StringWriter(json.length() / 2);
+        values.writeJSONString(out);
+        return out;
+    }
+
+    @Benchmark
+    public double sumDoubleArray() {
+        double sum = 0;
+        for (double d : values.getDoubleArray()) {
+            sum += d;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumGetItem() {
+        double sum = 0;
+        int size = values.size();
+        for (int i = 0; i < size; i++) {
+            sum += ((Number) values.getItem(i)).doubleValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Series bindArrays() throws Exception {
+        return parser.parseJson(Series.class, new QJsonReader(json));
+    }
+
+    @Benchmark
+    public BoxedSeries bindLists() throws Exception {
+        return parser.parseJson(BoxedSeries.class, new QJsonReader(json));
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonLines;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Printing {@code records} records: {@link JsonParser#parseCollection} of {@link BenchRecord} objects
+ * and {@link QJson#toJSONString(int)} of a top-level array, by pools of 1 to 8 threads
+ * ({@link JsonParser#setParallel}, {@link QJson#setParallelPrint}); threads=1 is the sequential print.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelPrintBenchmark {
+
+    @Param({"100000"})
+    public int records;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final JsonParser parser = new JsonParser();
+    private List<BenchRecord> objects;
+    private QJson array;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        objects = new ArrayList<>(records);
+        new QJsonLines(new StringReader(Corpus.generateLines(records))).nextBatch(BenchRecord.class, objects, records);
+        array = new QJson(QJson.QJSON_TYPE_ARRAY);
+        array.parseJSONString(Corpus.generateRecords(records));
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            parser.setParallel(pool, JsonParser.DEFAULT_PARALLEL_THRESHOLD);
+            QJson.setParallelPrint(pool, QJson.DEFAULT_PRINT_THRESHOLD);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        QJson.setParallelPrint(null, QJson.DEFAULT_PRINT_THRESHOLD);
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public String parseCollection() throws Exception {
+        return parser.parseCollection(objects);
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return array.toJSONString(0);
+    }
+}
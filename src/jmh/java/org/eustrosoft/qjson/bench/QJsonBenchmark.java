@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and writing of {@link QJson} trees over the generated {@link Corpus}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonBenchmark {
+
+    @Param({"SMALL", "DEEP", "WIDE", "NUMERIC", "STRINGS", "SERIES"})
+    public Corpus.Shape shape;
+
+    private String json;
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private QJson tree;
+
+    @Setup
+    public void setup() throws IOException {
+        json = Corpus.generate(shape);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.flip();
+        tree = new QJson();
+        tree.parseJSONString(json);
+    }
+
+    @Benchmark
+    public QJson parseJSONString() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONString(json);
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseJSONReader() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONReader(new StringReader(json));
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseUtf8Reader() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseJSONBytes() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONBytes(bytes, 0, bytes.length);
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseJSONStream() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONStream(new ByteArrayInputStream(bytes));
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseJSONBufferDirect() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONBuffer(direct);
+        return q;
+    }
+
+    @Benchmark
+    public int readTokens() throws IOException {
+        QJsonReader reader = new QJsonReader(json);
+        int count = 0;
+        while (reader.nextToken() != QJsonReader.TOKEN_END_DOCUMENT) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public StringWriter writeJSONString() throws IOException {
+        StringWriter out = new StringWriter(json.length());
+        tree.writeJSONString(out);
+        return out;
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return tree.toJSONString();
+    }
+}
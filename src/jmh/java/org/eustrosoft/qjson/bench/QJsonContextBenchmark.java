@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.JsonParser;
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonContext;
+import org.eustrosoft.qjson.QJsonReader;
+import org.eustrosoft.qjson.QJsonSymbols;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state of a service which handles one document after another: new reader, QJson parse and
+ * toJSONString() for each document against the same {@link QJsonContext} for all of them
+ * (with no table of names, as a new context has, and with one).
+ * Run with -prof gc: gc.alloc.rate.norm is the garbage of one document.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonContextBenchmark {
+
+    @Param({"SMALL", "WIDE"})
+    public Corpus.Shape shape;
+
+    private String json;
+    private byte[] bytes;
+    private QJson tree;
+    private BenchRecord record;
+    private JsonParser parser;
+    private QJsonContext context;
+    private QJsonContext symbols; // with a table of names
+
+    @Setup
+    public void setup() throws Exception {
+        json = Corpus.generateRecord(shape);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        tree = new QJson();
+        tree.parseJSONString(json);
+        parser = new JsonParser();
+        record = parser.parseJson(BenchRecord.class, json);
+        context = new QJsonContext();
+        symbols = new QJsonContext();
+        symbols.setSymbols(new QJsonSymbols());
+    }
+
+    @Benchmark
+    public long readTokensNew() throws IOException {
+        return readTokens(new QJsonReader(bytes, 0, bytes.length));
+    }
+
+    @Benchmark
+    public long readTokensContext() throws IOException {
+        return readTokens(context.reader(bytes, 0, bytes.length));
+    }
+
+    @Benchmark
+    public QJson parseNew() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONString(json);
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseContext() throws IOException {
+        return context.parse(json);
+    }
+
+    @Benchmark
+    public QJson parseContextSymbols() throws IOException {
+        return symbols.parse(json);
+    }
+
+    @Benchmark
+    public String toJSONStringNew() {
+        return tree.toJSONString();
+    }
+
+    @Benchmark
+    public String toJSONStringContext() {
+        return context.toJSONString(tree);
+    }
+
+    @Benchmark
+    public String parseObjectNew() throws Exception {
+        return parser.parseObject(record);
+    }
+
+    @Benchmark
+    public String parseObjectContext() throws Exception {
+        return context.parseObject(record);
+    }
+
+    // names and numbers without making Strings or boxes, as a streaming consumer reads them
+    private static long readTokens(QJsonReader reader) throws IOException {
+        long sum = 0;
+        int token;
+        while ((token = reader.nextToken()) != QJsonReader.TOKEN_END_DOCUMENT) {
+            if (token == QJsonReader.TOKEN_NUMBER) sum += reader.getLong();
+            else sum += token;
+        }
+        return sum;
+    }
+}
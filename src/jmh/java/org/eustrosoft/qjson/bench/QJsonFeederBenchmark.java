@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonFeeder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A document which arrives in chunks of {@code chunk} bytes (1460 is one TCP segment): parsed by
+ * {@link QJsonFeeder} chunk by chunk against {@link QJson#parseJSONBytes} of the whole document,
+ * which is what a server without the feeder does after buffering the body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonFeederBenchmark {
+
+    @Param({"WIDE", "NUMERIC", "STRINGS", "RECORDS"})
+    public String shape;
+
+    @Param({"1460", "65536"})
+    public int chunk;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        String doc = "RECORDS".equals(shape) ? Corpus.generateRecord(Corpus.Shape.WIDE)
+                : Corpus.generate(Corpus.Shape.valueOf(shape));
+        json = doc.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public QJson whole() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONBytes(json, 0, json.length);
+        return q;
+    }
+
+    @Benchmark
+    public QJson feeder() throws IOException {
+        QJsonFeeder feeder = new QJsonFeeder();
+        QJson q = null;
+        for (int off = 0; off < json.length && q == null; off += chunk) {
+            feeder.feed(ByteBuffer.wrap(json, off, Math.min(chunk, json.length - off)));
+            q = feeder.parse();
+        }
+        return q != null ? q : feeder.endOfInput().parse();
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parsing a corpus document from a file: memory mapped {@link QJson#parseFile},
+ * {@link QJson#parseFileItems} and the Reader based way.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonFileBenchmark {
+
+    @Param({"NUMERIC", "STRINGS"})
+    public Corpus.Shape shape;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("qjson-bench", ".json");
+        Files.write(file, Corpus.generate(shape).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public QJson parseFile() throws IOException {
+        QJson q = new QJson();
+        q.parseFile(file);
+        return q;
+    }
+
+    @Benchmark
+    public long parseFileItems() throws IOException {
+        final AtomicLong count = new AtomicLong();
+        QJson.parseFileItems(file, item -> count.incrementAndGet());
+        return count.get();
+    }
+
+    @Benchmark
+    public QJson parseFileReader() throws IOException {
+        QJson q = new QJson();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            q.parseJSONReader(reader);
+        }
+        return q;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Heap footprint of parsed {@link QJson} trees, measured with JOL.
+ * <p>
+ * "structure" is everything except the values themselves (strings, boxed numbers and
+ * booleans), i.e. the cost of the nodes and their backing storage, numbers of packed numeric
+ * arrays included. "lazy B" is the whole
+ * heap of {@link QJson#parseJSONLazy(byte[], int, int)} tree before any item is read:
+ * the document bytes and their structural index. "frozen B" is the whole heap of
+ * {@link QJson#freeze()} of the parsed tree, name indexes included.
+ * <p>
+ * Usage: java -Djdk.attach.allowAttachSelf -cp target/benchmarks.jar org.eustrosoft.qjson.bench.QJsonFootprint
+ */
+public class QJsonFootprint {
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%-8s %8s %8s %12s %12s %10s %10s %12s %12s%n",
+                "shape", "nodes", "items", "total B", "structure B", "B/node", "B/item", "lazy B", "frozen B");
+        for (Corpus.Shape shape : Corpus.Shape.values()) {
+            report(shape.name(), Corpus.generate(shape));
+        }
+        report("RECORDS", Corpus.generateRecord(Corpus.Shape.WIDE));
+    }
+
+    private static void report(String name, String json) throws IOException {
+        QJson tree = new QJson();
+        tree.parseJSONString(json);
+        GraphLayout layout = GraphLayout.parseInstance(tree);
+        long values = 0;
+        for (Class<?> c : layout.getClasses()) {
+            if (c == String.class || c == char[].class || c == byte[].class || c == Long.class
+                    || c == Double.class || c == Boolean.class) {
+                values += layout.getClassSizes().count(c);
+            }
+        }
+        long nodes = layout.getClassCounts().count(QJson.class);
+        long items = countItems(tree);
+        long structure = layout.totalSize() - values;
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        long lazy = GraphLayout.parseInstance(QJson.parseJSONLazy(bytes, 0, bytes.length)).totalSize();
+        long frozen = GraphLayout.parseInstance(tree.freeze()).totalSize();
+        System.out.printf("%-8s %8d %8d %12d %12d %10.1f %10.1f %12d %12d%n", name, nodes, items, layout.totalSize(),
+                structure, (double) structure / nodes, (double) structure / items, lazy, frozen);
+    }
+
+    private static long countItems(QJson node) {
+        long items = node.size();
+        for (int i = 0; i < node.size(); i++) {
+            Object item = node.getItem(i);
+            if (item instanceof QJson) items += countItems((QJson) item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of one tree shared by all benchmark threads: getItem(String) of every key of
+ * {@link Corpus#RECORDS} records ({@link Corpus#generateRecord(Corpus.Shape)} WIDE) from a frozen
+ * tree ({@link QJson#freeze()}, no locks) and from the parsed one under a lock, as a mutable
+ * tree must be read by many threads. Run with threads up to the number of cores to see scaling:
+ * <pre>
+ * for t in 1 2 4 8; do java -jar target/benchmarks.jar QJsonFrozenBenchmark -t $t; done
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonFrozenBenchmark {
+
+    private static final String[] KEYS = {"id", "name", "active", "score", "tags", "values"};
+
+    private QJson records;
+    private QJson frozen;
+    private String[] keys;
+
+    @Setup
+    public void setup() throws IOException {
+        QJson root = new QJson();
+        root.parseJSONString(Corpus.generateRecord(Corpus.Shape.WIDE));
+        records = root.getItemQJson("children");
+        frozen = root.freeze().getItemQJson("children");
+        keys = new String[KEYS.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new String(KEYS[i]); // not the parsed instances
+        }
+    }
+
+    @Benchmark
+    public void getItemFrozen(Blackhole bh) {
+        readAll(frozen, bh);
+    }
+
+    @Benchmark
+    public void getItemLocked(Blackhole bh) {
+        synchronized (records) {
+            readAll(records, bh);
+        }
+    }
+
+    private void readAll(QJson records, Blackhole bh) {
+        int size = records.size();
+        for (int i = 0; i < size; i++) {
+            QJson record = records.getItemQJson(i);
+            for (String key : keys) {
+                bh.consume(record.getItem(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse a corpus document and read a few of its items: full tree ({@link QJson#parseJSONBytes})
+ * against the lazy one ({@link QJson#parseJSONLazy(byte[], int, int)}). Heap of the resulting
+ * trees is reported by {@link QJsonFootprint}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonLazyBenchmark {
+
+    @Param({"WIDE", "NUMERIC", "STRINGS", "RECORDS"})
+    public String shape;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        String doc = "RECORDS".equals(shape) ? Corpus.generateRecord(Corpus.Shape.WIDE)
+                : Corpus.generate(Corpus.Shape.valueOf(shape));
+        json = doc.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object fullTouchFew() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONBytes(json, 0, json.length);
+        return touch(q);
+    }
+
+    @Benchmark
+    public Object lazyTouchFew() throws IOException {
+        return touch(QJson.parseJSONLazy(json, 0, json.length));
+    }
+
+    @Benchmark
+    public Object lazyTouchAll() throws IOException {
+        return touchAll(QJson.parseJSONLazy(json, 0, json.length));
+    }
+
+    // first, middle and last item and one name lookup
+    private static Object touch(QJson q) {
+        int size = q.size();
+        Object last = q.getItem(size - 1);
+        Object middle = q.getItem(size / 2);
+        Object byName = q.getItem(q.getItemName(size / 3));
+        return q.getItem(0) == last ? middle : byName;
+    }
+
+    private static long touchAll(QJson q) {
+        long n = q.size();
+        for (int i = 0; i < q.size(); i++) {
+            Object item = q.getItem(i);
+            if (item instanceof QJson) n += touchAll((QJson) item);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonLines;
+import org.eustrosoft.qjson.QJsonLinesWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Newline-delimited records ({@link Corpus#generateLines(int)}) read by {@link QJsonLines} as QJson
+ * trees, in batches and bound to {@link BenchRecord}, and written back by {@link QJsonLinesWriter}.
+ * Scores are records per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonLinesBenchmark {
+
+    static final int RECORDS = 10000;
+    static final int BATCH_SIZE = 1000;
+
+    private byte[] lines;
+    private List<QJson> records;
+
+    @Setup
+    public void setup() throws IOException {
+        lines = Corpus.generateLines(RECORDS).getBytes(StandardCharsets.UTF_8);
+        records = new ArrayList<>();
+        new QJsonLines(new ByteArrayInputStream(lines)).nextBatch(records, RECORDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void readQJson(Blackhole bh) throws IOException {
+        QJsonLines in = new QJsonLines(new ByteArrayInputStream(lines));
+        QJson record;
+        while ((record = in.next()) != null) {
+            bh.consume(record);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void readBatches(Blackhole bh) throws IOException {
+        QJsonLines in = new QJsonLines(new ByteArrayInputStream(lines));
+        List<QJson> batch = new ArrayList<>(BATCH_SIZE);
+        while (in.nextBatch(batch, BATCH_SIZE) > 0) {
+            bh.consume(batch);
+            batch.clear();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void readBound(Blackhole bh) throws Exception {
+        QJsonLines in = new QJsonLines(new ByteArrayInputStream(lines));
+        BenchRecord record;
+        while ((record = in.next(BenchRecord.class)) != null) {
+            bh.consume(record);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void write() throws IOException {
+        QJsonLinesWriter out = new QJsonLinesWriter(QJsonWriterBenchmark.NullOutput.INSTANCE);
+        for (QJson record : records) {
+            out.write(record);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QJson#getItem(String)} for every key of an object with {@code keys} names.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonLookupBenchmark {
+
+    @Param({"4", "16", "128", "1024"})
+    public int keys;
+
+    private QJson object;
+    private String[] names;
+
+    @Setup
+    public void setup() {
+        object = new QJson();
+        names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = new String("key" + i); // not interned, like parsed names
+            object.addItem("key" + i, (long) i);
+        }
+    }
+
+    @Benchmark
+    public void getItemAll(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(object.getItem(name));
+        }
+    }
+}
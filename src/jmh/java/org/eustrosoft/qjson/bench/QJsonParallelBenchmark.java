@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse of one big top-level array of records: sequential {@link QJson#parseJSONBytes} against
+ * {@link QJson#parseJSONParallel(byte[], int, int, ForkJoinPool)} with pools of 1 to 8 threads,
+ * the scaling curve. Use -p threads=... for the number of cores of the machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonParallelBenchmark {
+
+    @Param({"100000"})
+    public int records;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private byte[] json;
+    private String text;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        text = Corpus.generateRecords(records);
+        json = text.getBytes(StandardCharsets.UTF_8);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public QJson sequentialBytes() throws IOException {
+        QJson q = new QJson(QJson.QJSON_TYPE_ARRAY);
+        q.parseJSONBytes(json, 0, json.length);
+        return q;
+    }
+
+    @Benchmark
+    public QJson parallelBytes() throws IOException {
+        return QJson.parseJSONParallel(json, 0, json.length, pool);
+    }
+
+    @Benchmark
+    public QJson parallelString() throws IOException {
+        return QJson.parseJSONParallel(text, pool);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonPath;
+import org.eustrosoft.qjson.QJsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading two values of a {@link Corpus#generateRecord(Corpus.Shape)} WIDE document: the id of the
+ * middle child and the last tag of the last child. On a parsed tree by getItemQJson() chains against
+ * compiled {@link QJsonPath}s, and from the bytes by parse + chains against {@link QJsonPath#read(QJsonReader, QJsonPath...)},
+ * which skips the other children and stops after the values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonPathBenchmark {
+
+    private static final int MIDDLE = Corpus.RECORDS / 2;
+    private static final int LAST = Corpus.RECORDS - 1;
+
+    private final QJsonPath middleId = QJsonPath.compile("/children/" + MIDDLE + "/id");
+    private final QJsonPath lastTag = QJsonPath.compile("/children/" + LAST + "/tags/3");
+
+    private byte[] json;
+    private QJson tree;
+
+    @Setup
+    public void setup() throws IOException {
+        json = Corpus.generateRecord(Corpus.Shape.WIDE).getBytes(StandardCharsets.UTF_8);
+        tree = new QJson();
+        tree.parseJSONBytes(json, 0, json.length);
+    }
+
+    @Benchmark
+    public Object treeChain() {
+        return chain(tree);
+    }
+
+    @Benchmark
+    public Object treePath() {
+        return middleId.get(tree) == null ? null : lastTag.get(tree);
+    }
+
+    @Benchmark
+    public Object parseChain() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONBytes(json, 0, json.length);
+        return chain(q);
+    }
+
+    @Benchmark
+    public Object[] streamPath() throws IOException {
+        return QJsonPath.read(new QJsonReader(json, 0, json.length), middleId, lastTag);
+    }
+
+    private static Object chain(QJson q) {
+        Object id = q.getItemQJson("children").getItemQJson(MIDDLE).getItem("id");
+        return id == null ? null : q.getItemQJson("children").getItemQJson(LAST).getItemQJson("tags").getItem(3);
+    }
+}
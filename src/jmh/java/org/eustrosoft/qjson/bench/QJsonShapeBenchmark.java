@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Array of {@link Corpus#RECORDS} records with the same keys ({@link Corpus#generateRecord(Corpus.Shape)}
+ * WIDE), which parsed objects share names of: parsing and getItem(String) of every key of every record.
+ * See {@link QJsonFootprint} RECORDS for the heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonShapeBenchmark {
+
+    private static final String[] KEYS = {"id", "name", "active", "score", "tags", "values"};
+
+    private String json;
+    private QJson records;
+    private String[] keys;
+
+    @Setup
+    public void setup() throws IOException {
+        json = Corpus.generateRecord(Corpus.Shape.WIDE);
+        QJson root = new QJson();
+        root.parseJSONString(json);
+        records = root.getItemQJson("children");
+        keys = new String[KEYS.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new String(KEYS[i]); // not the parsed instances
+        }
+    }
+
+    @Benchmark
+    public QJson parseJSONString() throws IOException {
+        QJson q = new QJson();
+        q.parseJSONString(json);
+        return q;
+    }
+
+    @Benchmark
+    public void getItemAll(Blackhole bh) {
+        int size = records.size();
+        for (int i = 0; i < size; i++) {
+            QJson record = records.getItemQJson(i);
+            for (String key : keys) {
+                bh.consume(record.getItem(key));
+            }
+        }
+    }
+}
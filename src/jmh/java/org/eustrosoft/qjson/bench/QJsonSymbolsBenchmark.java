@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonReader;
+import org.eustrosoft.qjson.QJsonSymbols;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object names of {@link Corpus#generateRecord(Corpus.Shape)} WIDE ({@link Corpus#RECORDS} records
+ * with the same keys) with no {@link QJsonSymbols}, a table per parse and a table shared by parses.
+ * Run with -prof gc: names found in the table allocate nothing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonSymbolsBenchmark {
+
+    private String json;
+    private QJsonSymbols shared;
+
+    @Setup
+    public void setup() {
+        json = Corpus.generateRecord(Corpus.Shape.WIDE);
+        shared = new QJsonSymbols();
+    }
+
+    @Benchmark
+    public int readNamesNoTable() throws IOException {
+        return readNames(new QJsonReader(json));
+    }
+
+    @Benchmark
+    public int readNamesPerParse() throws IOException {
+        QJsonReader reader = new QJsonReader(json);
+        reader.setSymbols(new QJsonSymbols());
+        return readNames(reader);
+    }
+
+    @Benchmark
+    public int readNamesShared() throws IOException {
+        QJsonReader reader = new QJsonReader(json);
+        reader.setSymbols(shared);
+        return readNames(reader);
+    }
+
+    @Benchmark
+    public QJson parseNoTable() throws IOException {
+        QJson q = new QJson();
+        q.parseDocument(new QJsonReader(json));
+        return q;
+    }
+
+    @Benchmark
+    public QJson parsePerParse() throws IOException {
+        QJsonReader reader = new QJsonReader(json);
+        reader.setSymbols(new QJsonSymbols());
+        QJson q = new QJson();
+        q.parseDocument(reader);
+        return q;
+    }
+
+    @Benchmark
+    public QJson parseShared() throws IOException {
+        QJsonReader reader = new QJsonReader(json);
+        reader.setSymbols(shared);
+        QJson q = new QJson();
+        q.parseDocument(reader);
+        return q;
+    }
+
+    private static int readNames(QJsonReader reader) throws IOException {
+        int length = 0;
+        int token;
+        while ((token = reader.nextToken()) != QJsonReader.TOKEN_END_DOCUMENT) {
+            if (token == QJsonReader.TOKEN_NAME) length += reader.getString().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.bench;
+
+import org.eustrosoft.qjson.QJson;
+import org.eustrosoft.qjson.QJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producing a response of {@code records} records: QJson tree + toJSONString() versus
+ * {@link QJsonWriter} straight to the output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QJsonWriterBenchmark {
+
+    @Param({"10", "10000"})
+    public int records;
+
+    @Benchmark
+    public int treeToJSONString() {
+        QJson array = new QJson(QJson.QJSON_TYPE_ARRAY);
+        for (int i = 0; i < records; i++) {
+            QJson record = new QJson();
+            record.addItem("id", (long) i);
+            record.addItem("name", "record \"" + i + "\"");
+            record.addItem("score", i / 3.0);
+            record.addItem("active", (i & 1) == 0);
+            array.addItem(record);
+        }
+        return array.toJSONString(0).length();
+    }
+
+    @Benchmark
+    public int writer() throws IOException {
+        StringWriter out = new StringWriter();
+        write(new QJsonWriter(out));
+        return out.getBuffer().length();
+    }
+
+    @Benchmark
+    public void writerToStream() throws IOException {
+        write(new QJsonWriter(NullOutput.INSTANCE));
+    }
+
+    private void write(QJsonWriter w) throws IOException {
+        w.beginArray();
+        for (int i = 0; i < records; i++) {
+            w.beginObject()
+                    .name("id").value(i)
+                    .name("name").value("record \"" + i + "\"")
+                    .name("score").value(i / 3.0)
+                    .name("active").value((i & 1) == 0)
+                    .endObject();
+        }
+        w.endArray();
+        w.flush();
+    }
+
+    static final class NullOutput extends OutputStream {
+        static final NullOutput INSTANCE = new NullOutput();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
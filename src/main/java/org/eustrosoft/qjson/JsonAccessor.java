@@ -0,0 +1,297 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Read/write access to one field for {@link JsonBindPlan}, created once per field.
+ * <p>
+ * Besides Object get()/set() there are primitive variants, so numbers and booleans go
+ * to/from primitive fields without boxing: getLong()/setLong() for long, int, short and byte
+ * fields, getDouble()/setDouble() for double and float ones, getBoolean()/setBoolean() for boolean.
+ * <p>
+ * The default implementation invokes MethodHandles of the field adapted to exact types;
+ * plain reflection is used where handles can not be had (final fields and so on).
+ * LambdaMetafactory is of no use here: it spins lambdas over methods only, and bound
+ * classes are expected to have private fields without getters and setters.
+ */
+abstract class JsonAccessor {
+    static final int STRATEGY_REFLECTION = 0;
+    static final int STRATEGY_METHOD_HANDLE = 1;
+
+    final Field field;
+    final Class<?> type;
+
+    JsonAccessor(Field field) {
+        this.field = field;
+        this.type = field.getType();
+    }
+
+    /**
+     * accessor of accessible field
+     */
+    static JsonAccessor of(Field field) {
+        return of(field, STRATEGY_METHOD_HANDLE);
+    }
+
+    static JsonAccessor of(Field field, int strategy) {
+        if (strategy == STRATEGY_METHOD_HANDLE) {
+            try {
+                return new Handles(field);
+            } catch (IllegalAccessException ex) {
+                // final or otherwise not writable by handles
+            }
+        }
+        return new Reflection(field);
+    }
+
+    abstract Object get(Object obj);
+
+    abstract void set(Object obj, Object value);
+
+    abstract long getLong(Object obj);
+
+    abstract void setLong(Object obj, long value);
+
+    abstract double getDouble(Object obj);
+
+    abstract void setDouble(Object obj, double value);
+
+    abstract boolean getBoolean(Object obj);
+
+    abstract void setBoolean(Object obj, boolean value);
+
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    private static final class Reflection extends JsonAccessor {
+
+        Reflection(Field field) {
+            super(field);
+        }
+
+        Object get(Object obj) {
+            try {
+                return field.get(obj);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        void set(Object obj, Object value) {
+            try {
+                field.set(obj, value);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        long getLong(Object obj) {
+            try {
+                return field.getLong(obj);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        void setLong(Object obj, long value) {
+            try {
+                if (type == int.class) {
+                    field.setInt(obj, (int) value);
+                } else if (type == short.class) {
+                    field.setShort(obj, (short) value);
+                } else if (type == byte.class) {
+                    field.setByte(obj, (byte) value);
+                } else {
+                    field.setLong(obj, value);
+                }
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        double getDouble(Object obj) {
+            try {
+                return field.getDouble(obj);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        void setDouble(Object obj, double value) {
+            try {
+                if (type == float.class) {
+                    field.setFloat(obj, (float) value);
+                } else {
+                    field.setDouble(obj, value);
+                }
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        boolean getBoolean(Object obj) {
+            try {
+                return field.getBoolean(obj);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+
+        void setBoolean(Object obj, boolean value) {
+            try {
+                field.setBoolean(obj, value);
+            } catch (IllegalAccessException ex) {
+                throw rethrow(ex);
+            }
+        }
+    }
+
+    private static final class Handles extends JsonAccessor {
+        private final MethodHandle getter; // (Object)Object
+        private final MethodHandle setter; // (Object,Object)void
+        private final MethodHandle primitiveGetter; // (Object)type of primitive field
+        private final MethodHandle primitiveSetter; // (Object,type)void of primitive field
+
+        Handles(Field field) throws IllegalAccessException {
+            super(field);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle get = lookup.unreflectGetter(field);
+            MethodHandle set = lookup.unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                get = MethodHandles.dropArguments(get, 0, Object.class);
+                set = MethodHandles.dropArguments(set, 0, Object.class);
+            }
+            getter = get.asType(MethodType.methodType(Object.class, Object.class));
+            setter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            if (type.isPrimitive()) {
+                primitiveGetter = get.asType(MethodType.methodType(type, Object.class));
+                primitiveSetter = set.asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                primitiveGetter = null;
+                primitiveSetter = null;
+            }
+        }
+
+        Object get(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        void set(Object obj, Object value) {
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        long getLong(Object obj) {
+            try {
+                if (type == int.class) {
+                    return (int) primitiveGetter.invokeExact(obj);
+                }
+                if (type == long.class) {
+                    return (long) primitiveGetter.invokeExact(obj);
+                }
+                if (type == short.class) {
+                    return (short) primitiveGetter.invokeExact(obj);
+                }
+                if (type == byte.class) {
+                    return (byte) primitiveGetter.invokeExact(obj);
+                }
+                return ((Number) get(obj)).longValue();
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        void setLong(Object obj, long value) {
+            try {
+                if (type == int.class) {
+                    primitiveSetter.invokeExact(obj, (int) value);
+                } else if (type == long.class) {
+                    primitiveSetter.invokeExact(obj, value);
+                } else if (type == short.class) {
+                    primitiveSetter.invokeExact(obj, (short) value);
+                } else if (type == byte.class) {
+                    primitiveSetter.invokeExact(obj, (byte) value);
+                } else {
+                    set(obj, value);
+                }
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        double getDouble(Object obj) {
+            try {
+                if (type == double.class) {
+                    return (double) primitiveGetter.invokeExact(obj);
+                }
+                if (type == float.class) {
+                    return (float) primitiveGetter.invokeExact(obj);
+                }
+                return ((Number) get(obj)).doubleValue();
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        void setDouble(Object obj, double value) {
+            try {
+                if (type == double.class) {
+                    primitiveSetter.invokeExact(obj, value);
+                } else if (type == float.class) {
+                    primitiveSetter.invokeExact(obj, (float) value);
+                } else {
+                    set(obj, value);
+                }
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        boolean getBoolean(Object obj) {
+            try {
+                if (type == boolean.class) {
+                    return (boolean) primitiveGetter.invokeExact(obj);
+                }
+                return (Boolean) get(obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        void setBoolean(Object obj, boolean value) {
+            try {
+                if (type == boolean.class) {
+                    primitiveSetter.invokeExact(obj, value);
+                } else {
+                    set(obj, value);
+                }
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.eustrosoft.qjson.annotations.JsonIgnore;
+import org.eustrosoft.qjson.annotations.JsonNotNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything {@link JsonParser} needs to know about a class to bind it: the properties
+ * (fields of the class and its superclasses without {@link JsonIgnore} ones) with their
+ * {@link JsonAccessor}s, kinds, element types and json names, and the {@link JsonNotNull} flag.
+ * <p>
+ * Plans are immutable, built once per class and kept in a {@link ClassValue}, so they do
+ * not prevent the class from unloading.
+ */
+final class JsonBindPlan {
+    static final int KIND_OTHER = 0; // String, Boolean, nested objects
+    static final int KIND_NUMBER = 1; // Number and its subclasses (not primitives)
+    static final int KIND_COLLECTION = 2;
+    static final int KIND_MAP = 3;
+    static final int KIND_ENUM = 4;
+    static final int KIND_OBJECT = 5; // declared as Object
+    static final int KIND_PRIMITIVE = 6;
+    static final int KIND_ARRAY = 7; // int[], long[] and double[]
+
+    private static final ClassValue<JsonBindPlan> PLANS = new ClassValue<JsonBindPlan>() {
+        @Override
+        protected JsonBindPlan computeValue(Class<?> type) {
+            return new JsonBindPlan(type);
+        }
+    };
+
+    final Class<?> type;
+    final boolean notNull;
+    final Property[] properties;
+    final Property[] serialized; // properties without the ones hidden by a property of the same name
+    private final Property[] table; // open addressing by name hash, first property of the name wins
+
+    private JsonBindPlan(Class<?> type) {
+        this.type = type;
+        this.notNull = type.getAnnotation(JsonNotNull.class) != null;
+        List<Property> list = new ArrayList<>();
+        for (Class<?> cur = type; cur != null; cur = cur.getSuperclass()) {
+            for (Field field : cur.getDeclaredFields()) {
+                if (field.isSynthetic() || field.getAnnotation(JsonIgnore.class) != null) {
+                    continue;
+                }
+                list.add(new Property(field));
+            }
+        }
+        this.properties = list.toArray(new Property[0]);
+        int size = Integer.highestOneBit(Math.max(properties.length, 1) * 2) * 2;
+        this.table = new Property[size];
+        List<Property> unique = new ArrayList<>(properties.length);
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            property.index = i;
+            int slot = property.name.hashCode() & (size - 1);
+            while (table[slot] != null && !table[slot].name.equals(property.name)) {
+                slot = (slot + 1) & (size - 1);
+            }
+            if (table[slot] == null) {
+                table[slot] = property;
+                unique.add(property);
+            }
+        }
+        this.serialized = unique.size() == properties.length ? properties : unique.toArray(new Property[0]);
+    }
+
+    static JsonBindPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * @return property named as name (String.hashCode() is computed on the fly, nothing is created), or null
+     */
+    Property find(CharSequence name) {
+        int length = name.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            String candidate = table[slot].name;
+            if (candidate.hashCode() == hash && candidate.contentEquals(name)) {
+                return table[slot];
+            }
+        }
+        return null;
+    }
+
+    static final class Property {
+        final JsonAccessor accessor;
+        final String name;
+        final Class<?> type;
+        final int kind;
+        final Class<?> elementType; // collection element or map value class, null if unknown
+        final String jsonName; // "name": escaped and quoted
+        int index; // in properties[]
+
+        private Property(Field field) {
+            field.setAccessible(true);
+            this.accessor = JsonAccessor.of(field);
+            this.name = field.getName();
+            this.type = field.getType();
+            this.kind = kindOf(type);
+            this.elementType = typeArgument(field.getGenericType(), kind == KIND_MAP ? 1 : 0);
+            this.jsonName = "\"" + JsonParser.escape(name) + "\":";
+        }
+    }
+
+    private static int kindOf(Class<?> type) {
+        if (type.isPrimitive()) {
+            return KIND_PRIMITIVE;
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return KIND_NUMBER;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return KIND_COLLECTION;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return KIND_MAP;
+        }
+        if (type.isEnum()) {
+            return KIND_ENUM;
+        }
+        if (type == int[].class || type == long[].class || type == double[].class) {
+            return KIND_ARRAY;
+        }
+        if (type.getSimpleName().equals(Object.class.getSimpleName())) {
+            return KIND_OBJECT;
+        }
+        return KIND_OTHER;
+    }
+
+    private static Class<?> typeArgument(Type type, int index) {
+        if (!(type instanceof ParameterizedType)) {
+            return null;
+        }
+        Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+        if (arguments.length <= index) {
+            return null;
+        }
+        Type argument = arguments[index];
+        if (argument instanceof ParameterizedType) {
+            argument = ((ParameterizedType) argument).getRawType();
+        }
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+}
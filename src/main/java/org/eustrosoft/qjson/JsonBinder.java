@@ -0,0 +1,434 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binding engine of {@link JsonParser}: reads tokens from {@link QJsonReader} once and
+ * writes values straight into the fields described by {@link JsonBindPlan}, nested objects
+ * are bound from the same reader. No QJson tree is built and nothing is parsed twice.
+ * <p>
+ * The rules are the ones JsonParser always had:
+ * <ul>
+ * <li>Number fields get the value converted from its text, missing ones become null, primitive
+ * fields get numbers and booleans and are left as is if value is missing, null or of other type;</li>
+ * <li>List and Set fields get ArrayList and HashSet (empty if json has no array/object there),
+ * strings are added quoted, numbers are converted to the element class if it is Integer, Long,
+ * Short, Double or Float and the value fits it, elements stop at the first null or at an object
+ * which can not be bound;</li>
+ * <li>int[], long[] and double[] fields get the numbers of array as primitive fields get them, up to
+ * the first item of other type, and are left as is if value is missing or is not an array;</li>
+ * <li>Map fields get HashMap or LinkedHashMap of scalar values, the first value of a name wins;</li>
+ * <li>other fields take a scalar value of their own class or a nested object bound to a new
+ * instance of the field class, nothing is changed if neither is possible.</li>
+ * </ul>
+ * Unknown names are skipped without creating anything.
+ */
+final class JsonBinder {
+
+    private JsonBinder() {
+    }
+
+    /**
+     * bind object (or array, which has no names to bind) which start token was just read
+     * from reader into obj, up to its end token; generated {@link JsonCodec} of the class is
+     * used if there is one
+     */
+    static <T> T bindObject(QJsonReader reader, T obj) throws IOException, IllegalAccessException {
+        JsonCodec<T> codec = JsonCodec.of(obj.getClass());
+        if (codec != null) {
+            return codec.read(reader, obj);
+        }
+        JsonBindPlan plan = JsonBindPlan.of(obj.getClass());
+        JsonBindPlan.Property[] properties = plan.properties;
+        boolean[] seen = new boolean[properties.length];
+        if (reader.getToken() == QJsonReader.TOKEN_START_ARRAY) {
+            reader.skipChildren();
+        } else {
+            while (reader.nextToken() == QJsonReader.TOKEN_NAME) {
+                JsonBindPlan.Property property = plan.find(reader.getText());
+                int token = reader.nextToken();
+                if (property == null) {
+                    reader.skipChildren();
+                    continue;
+                }
+                seen[property.index] = true;
+                bindValue(reader, token, obj, property);
+            }
+        }
+        for (JsonBindPlan.Property property : properties) {
+            if (!seen[property.index]) {
+                bindMissing(obj, property);
+            }
+        }
+        return obj;
+    }
+
+    private static void bindValue(QJsonReader reader, int token, Object obj, JsonBindPlan.Property property)
+            throws IOException, IllegalAccessException {
+        JsonAccessor accessor = property.accessor;
+        switch (property.kind) {
+            case JsonBindPlan.KIND_NUMBER:
+                accessor.set(obj, bindNumber(reader, token, property.type, property.name));
+                break;
+            case JsonBindPlan.KIND_PRIMITIVE:
+                bindPrimitive(reader, token, obj, property);
+                break;
+            case JsonBindPlan.KIND_COLLECTION:
+                accessor.set(obj, bindCollection(reader, token, property.type, property.elementType));
+                break;
+            case JsonBindPlan.KIND_MAP:
+                accessor.set(obj, bindMap(reader, token, property.type));
+                break;
+            case JsonBindPlan.KIND_ARRAY:
+                if (isContainer(token)) {
+                    accessor.set(obj, bindArray(reader, token, property.type, null));
+                }
+                break;
+            default:
+                Object current = accessor.get(obj);
+                Object value = bindOther(reader, token, property.type, current);
+                if (value != current) {
+                    accessor.set(obj, value);
+                }
+        }
+    }
+
+    static Number bindNumber(QJsonReader reader, int token, Class<?> type, String name) throws IOException {
+        if (isContainer(token)) {
+            throw new NumberFormatException("For input string: \"" + name + "\" object");
+        }
+        return toNumber(type, reader.getValue());
+    }
+
+    // scalar value of its own class or nested object bound to new instance of type, current value otherwise
+    static Object bindOther(QJsonReader reader, int token, Class<?> type, Object current) throws IOException {
+        if (isContainer(token)) {
+            int depth = reader.getDepth();
+            try {
+                return bindObject(reader, type.newInstance());
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                skipRest(reader, depth); // value is not an object of this class
+                return current;
+            }
+        }
+        Object item = reader.getValue();
+        return type.isInstance(item) ? item : current;
+    }
+
+    private static void bindPrimitive(QJsonReader reader, int token, Object obj, JsonBindPlan.Property property)
+            throws IOException {
+        JsonAccessor accessor = property.accessor;
+        Class<?> type = property.type;
+        if (type == boolean.class) {
+            accessor.setBoolean(obj, bindBoolean(reader, token, accessor.getBoolean(obj)));
+        } else if (type == double.class) {
+            accessor.setDouble(obj, bindDouble(reader, token, accessor.getDouble(obj)));
+        } else if (type == float.class) {
+            accessor.setDouble(obj, bindFloat(reader, token, (float) accessor.getDouble(obj)));
+        } else if (type == char.class) {
+            skipValue(reader, token);
+        } else {
+            accessor.setLong(obj, bindLong(reader, token, type, accessor.getLong(obj)));
+        }
+    }
+
+    // primitive values: number, boolean or text of number, current value for null, other strings and containers
+
+    static boolean bindBoolean(QJsonReader reader, int token, boolean current) throws IOException {
+        skipValue(reader, token);
+        if (token == QJsonReader.TOKEN_TRUE || token == QJsonReader.TOKEN_FALSE) {
+            return token == QJsonReader.TOKEN_TRUE;
+        }
+        return current;
+    }
+
+    // long, int, short or byte
+    static long bindLong(QJsonReader reader, int token, Class<?> type, long current) throws IOException {
+        if (token != QJsonReader.TOKEN_NUMBER && token != QJsonReader.TOKEN_STRING) {
+            skipValue(reader, token);
+            return current;
+        }
+        if (reader.scanNumber() == QJsonNumber.KIND_LONG) {
+            long v = reader.scannedLong(); // no Long in between
+            if (type == long.class || (type == int.class && v == (int) v)) {
+                return v;
+            }
+        }
+        return toNumber(type, reader.getValue()).longValue();
+    }
+
+    static double bindDouble(QJsonReader reader, int token, double current) throws IOException {
+        if (token == QJsonReader.TOKEN_NUMBER) {
+            return reader.getDouble(); // same as Double.valueOf(value.toString())
+        }
+        if (token == QJsonReader.TOKEN_STRING) {
+            return Double.parseDouble(reader.getString());
+        }
+        skipValue(reader, token);
+        return current;
+    }
+
+    static float bindFloat(QJsonReader reader, int token, float current) throws IOException {
+        if (token != QJsonReader.TOKEN_NUMBER && token != QJsonReader.TOKEN_STRING) {
+            skipValue(reader, token);
+            return current;
+        }
+        return toNumber(float.class, reader.getValue()).floatValue();
+    }
+
+    // value as getRightNumber() converts its text, long values are converted without text
+    static Number toNumber(Class<?> type, Object value) {
+        if (value instanceof Long) {
+            long v = (Long) value;
+            if (type == Long.class || type == long.class) {
+                return v;
+            }
+            if ((type == Integer.class || type == int.class) && v == (int) v) {
+                return (int) v;
+            }
+            if (type == Double.class || type == double.class) {
+                return (double) v;
+            }
+        }
+        return getRightNumber(type, value == null ? null : value.toString());
+    }
+
+    private static void bindMissing(Object obj, JsonBindPlan.Property property) throws IllegalAccessException {
+        switch (property.kind) {
+            case JsonBindPlan.KIND_NUMBER:
+                property.accessor.set(obj, null);
+                break;
+            case JsonBindPlan.KIND_COLLECTION:
+                property.accessor.set(obj, newCollection(property.type));
+                break;
+            case JsonBindPlan.KIND_MAP:
+                property.accessor.set(obj, newMap(property.type));
+                break;
+            default:
+                // left as is
+        }
+    }
+
+    static Collection bindCollection(QJsonReader reader, int token, Class<?> type, Class<?> elementType)
+            throws IOException {
+        Collection collection = newCollection(type);
+        if (!isContainer(token)) {
+            return collection;
+        }
+        int depth = reader.getDepth();
+        if (collection == null) {
+            reader.skipChildren();
+            return null;
+        }
+        boolean numbers = elementType == Integer.class || elementType == Long.class || elementType == Short.class
+                || elementType == Double.class || elementType == Float.class;
+        while (true) {
+            token = reader.nextToken();
+            if (token == QJsonReader.TOKEN_NAME) {
+                token = reader.nextToken();
+            }
+            if (token == QJsonReader.TOKEN_END_ARRAY || token == QJsonReader.TOKEN_END_OBJECT) {
+                return collection;
+            }
+            Object item;
+            if (isContainer(token)) {
+                try {
+                    item = bindObject(reader, elementType.newInstance());
+                } catch (IOException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    break; // not an object of element class
+                }
+            } else if (token == QJsonReader.TOKEN_NULL) {
+                break;
+            } else if (numbers && token == QJsonReader.TOKEN_NUMBER) {
+                item = bindElement(reader, elementType);
+            } else {
+                item = token == QJsonReader.TOKEN_STRING ? "\"" + reader.getString() + "\"" : reader.getValue();
+            }
+            collection.add(item);
+        }
+        skipRest(reader, depth);
+        return collection;
+    }
+
+    // number converted to Integer, Long, Short, Double or Float element, as is if it does not fit
+    private static Number bindElement(QJsonReader reader, Class<?> elementType) throws IOException {
+        int kind = reader.scanNumber();
+        if (kind == QJsonNumber.KIND_LONG) {
+            long v = reader.scannedLong();
+            if (elementType == Long.class) {
+                return v;
+            }
+            if (elementType == Integer.class && v == (int) v) {
+                return (int) v;
+            }
+        } else if (kind == QJsonNumber.KIND_DOUBLE && elementType == Double.class) {
+            return reader.scannedDouble();
+        }
+        Object value = reader.getValue();
+        try {
+            return toNumber(elementType, value);
+        } catch (NumberFormatException ex) {
+            return (Number) value;
+        }
+    }
+
+    /**
+     * int[], long[] or double[] of numbers (and text of numbers) of array or object which start token
+     * was just read, up to the first item of other type; current if value is not an array or object
+     */
+    static Object bindArray(QJsonReader reader, int token, Class<?> type, Object current) throws IOException {
+        if (!isContainer(token)) {
+            return current;
+        }
+        int depth = reader.getDepth();
+        Class<?> component = type.getComponentType();
+        boolean integer = component != double.class;
+        long[] longs = integer ? new long[16] : null;
+        double[] doubles = integer ? null : new double[16];
+        int size = 0;
+        while (true) {
+            token = reader.nextToken();
+            if (token == QJsonReader.TOKEN_NAME) {
+                token = reader.nextToken();
+            }
+            if (token == QJsonReader.TOKEN_END_ARRAY || token == QJsonReader.TOKEN_END_OBJECT) {
+                break;
+            }
+            if (token != QJsonReader.TOKEN_NUMBER && token != QJsonReader.TOKEN_STRING) {
+                skipRest(reader, depth);
+                break;
+            }
+            if (integer) {
+                if (size == longs.length) {
+                    longs = Arrays.copyOf(longs, size * 2);
+                }
+                longs[size++] = bindLong(reader, token, component, 0);
+            } else {
+                if (size == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, size * 2);
+                }
+                doubles[size++] = bindDouble(reader, token, 0);
+            }
+        }
+        if (component == double.class) {
+            return Arrays.copyOf(doubles, size);
+        }
+        if (component == long.class) {
+            return Arrays.copyOf(longs, size);
+        }
+        int[] ints = new int[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = (int) longs[i];
+        }
+        return ints;
+    }
+
+    static Map bindMap(QJsonReader reader, int token, Class<?> type) throws IOException {
+        Map map = newMap(type);
+        if (!isContainer(token)) {
+            return map;
+        }
+        int depth = reader.getDepth();
+        while (true) {
+            String name = null;
+            token = reader.nextToken();
+            if (token == QJsonReader.TOKEN_NAME) {
+                name = reader.getString();
+                token = reader.nextToken();
+            }
+            if (token == QJsonReader.TOKEN_END_ARRAY || token == QJsonReader.TOKEN_END_OBJECT) {
+                return map;
+            }
+            if (isContainer(token) || token == QJsonReader.TOKEN_NULL) {
+                break; // only scalar values
+            }
+            Object item = token == QJsonReader.TOKEN_STRING ? "\"" + reader.getString() + "\"" : reader.getValue();
+            map.putIfAbsent(name, item);
+        }
+        skipRest(reader, depth);
+        return map;
+    }
+
+    static Collection newCollection(Class<?> type) {
+        if (Set.class.isAssignableFrom(type)) {
+            return new HashSet();
+        }
+        if (List.class.isAssignableFrom(type)) {
+            return new ArrayList();
+        }
+        return null;
+    }
+
+    static Map newMap(Class<?> type) {
+        if (LinkedHashMap.class.isAssignableFrom(type)) {
+            return new LinkedHashMap();
+        }
+        return new HashMap();
+    }
+
+    private static boolean isContainer(int token) {
+        return token == QJsonReader.TOKEN_START_OBJECT || token == QJsonReader.TOKEN_START_ARRAY;
+    }
+
+    static void skipValue(QJsonReader reader, int token) throws IOException {
+        if (isContainer(token)) {
+            reader.skipChildren();
+        }
+    }
+
+    // read up to the end of container which items are at depth
+    private static void skipRest(QJsonReader reader, int depth) throws IOException {
+        while (reader.getDepth() >= depth) {
+            reader.nextToken();
+        }
+    }
+
+    static Number getRightNumber(Class<?> fieldType, String val) {
+        if (val == null) {
+            return null;
+        }
+        if (Short.class.isAssignableFrom(fieldType) || short.class.isAssignableFrom(fieldType)) {
+            return Short.parseShort(val);
+        }
+        if (Long.class.isAssignableFrom(fieldType) || long.class.isAssignableFrom(fieldType)) {
+            return Long.parseLong(val);
+        }
+        if (Integer.class.isAssignableFrom(fieldType) || int.class.isAssignableFrom(fieldType)) {
+            return Integer.parseInt(val);
+        }
+        if (Double.class.isAssignableFrom(fieldType) || double.class.isAssignableFrom(fieldType)) {
+            return Double.valueOf(val);
+        }
+        if (Float.class.isAssignableFrom(fieldType) || float.class.isAssignableFrom(fieldType)) {
+            return Float.valueOf(val);
+        }
+        if (BigDecimal.class.isAssignableFrom(fieldType)) {
+            return BigDecimal.valueOf(Double.parseDouble(val));
+        }
+        if (BigInteger.class.isAssignableFrom(fieldType)) {
+            return BigInteger.valueOf(Long.parseLong(val));
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.eustrosoft.qjson.annotations.JsonCodegen;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Base of the reader/writer classes generated for {@link JsonCodegen} classes by
+ * org.eustrosoft.qjson.processor.JsonCodegenProcessor. {@link JsonParser} finds the generated
+ * class (Name_JsonCodec in the package of Name) on first use of the type and binds and
+ * serializes it with straight-line code instead of reflection; without the generated class
+ * the reflection path works as before.
+ * <p>
+ * Generated code reads and writes the fields directly and calls the helpers below,
+ * which apply the same rules as the reflection path, so results are the same either way.
+ */
+public abstract class JsonCodec<T> {
+    public static final String SUFFIX = "_JsonCodec";
+
+    private static final JsonParser PARSER = new JsonParser();
+    private static final ClassValue<JsonCodec<?>> CODECS = new ClassValue<JsonCodec<?>>() {
+        @Override
+        protected JsonCodec<?> computeValue(Class<?> type) {
+            if (type.getAnnotation(JsonCodegen.class) == null) {
+                return null;
+            }
+            try {
+                return (JsonCodec<?>) Class.forName(type.getName() + SUFFIX, true, type.getClassLoader()).newInstance();
+            } catch (ClassNotFoundException ex) {
+                return null; // compiled without the processor
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    };
+
+    private final boolean notNull;
+    private final String[] names;
+    private final int[] table; // open addressing by name hash, index + 1, 0 is empty
+
+    /**
+     * @param notNull class has {@link org.eustrosoft.qjson.annotations.JsonNotNull}
+     * @param names   property names, readField() and readMissing() get indexes in this array
+     */
+    protected JsonCodec(boolean notNull, String... names) {
+        this.notNull = notNull;
+        this.names = names;
+        int size = Integer.highestOneBit(Math.max(names.length, 1) * 2) * 2;
+        this.table = new int[size];
+        for (int i = 0; i < names.length; i++) {
+            int slot = names[i].hashCode() & (size - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (size - 1);
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return generated codec of exactly this class or null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> JsonCodec<T> of(Class<?> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+
+    public abstract T newInstance();
+
+    /**
+     * bind object (or array, which has no names to bind) which start token was just read
+     * from reader into obj, up to its end token
+     */
+    public final T read(QJsonReader reader, T obj) throws IOException {
+        int count = names.length;
+        long seen = 0; // first 64 properties
+        boolean[] seenMore = count > 64 ? new boolean[count] : null;
+        if (reader.getToken() == QJsonReader.TOKEN_START_ARRAY) {
+            reader.skipChildren();
+        } else {
+            while (reader.nextToken() == QJsonReader.TOKEN_NAME) {
+                int index = find(reader.getText());
+                int token = reader.nextToken();
+                if (index < 0) {
+                    reader.skipChildren();
+                    continue;
+                }
+                if (index < 64) {
+                    seen |= 1L << index;
+                } else {
+                    seenMore[index] = true;
+                }
+                readField(reader, token, obj, index);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (i < 64 ? (seen & (1L << i)) == 0 : !seenMore[i]) {
+                readMissing(obj, i);
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * write object to out as {@link JsonParser#writeObject(Object, Appendable)} does
+     */
+    public final void write(T obj, Appendable out) throws IOException {
+        out.append('{');
+        writeFields(obj, out);
+        out.append('}');
+    }
+
+    /**
+     * bind value of property index which first token was just read
+     */
+    protected abstract void readField(QJsonReader reader, int token, T obj, int index) throws IOException;
+
+    /**
+     * property index is not in json
+     */
+    protected abstract void readMissing(T obj, int index);
+
+    /**
+     * write every property with the methods below, each gets the number of properties written
+     * so far and returns the new one
+     */
+    protected abstract void writeFields(T obj, Appendable out) throws IOException;
+
+    private int find(CharSequence name) {
+        int length = name.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            String candidate = names[table[slot] - 1];
+            if (candidate.hashCode() == hash && candidate.contentEquals(name)) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    // reading, see JsonBinder for the rules
+
+    protected static Number readNumber(QJsonReader reader, int token, Class<?> type, String name) throws IOException {
+        return JsonBinder.bindNumber(reader, token, type, name);
+    }
+
+    protected static long readLong(QJsonReader reader, int token, Class<?> type, long current) throws IOException {
+        return JsonBinder.bindLong(reader, token, type, current);
+    }
+
+    protected static double readDouble(QJsonReader reader, int token, double current) throws IOException {
+        return JsonBinder.bindDouble(reader, token, current);
+    }
+
+    protected static float readFloat(QJsonReader reader, int token, float current) throws IOException {
+        return JsonBinder.bindFloat(reader, token, current);
+    }
+
+    protected static boolean readBoolean(QJsonReader reader, int token, boolean current) throws IOException {
+        return JsonBinder.bindBoolean(reader, token, current);
+    }
+
+    protected static void skipValue(QJsonReader reader, int token) throws IOException {
+        JsonBinder.skipValue(reader, token);
+    }
+
+    protected static Collection readCollection(QJsonReader reader, int token, Class<?> type, Class<?> elementType)
+            throws IOException {
+        return JsonBinder.bindCollection(reader, token, type, elementType);
+    }
+
+    protected static Object readArray(QJsonReader reader, int token, Class<?> type, Object current) throws IOException {
+        return JsonBinder.bindArray(reader, token, type, current);
+    }
+
+    protected static Map readMap(QJsonReader reader, int token, Class<?> type) throws IOException {
+        return JsonBinder.bindMap(reader, token, type);
+    }
+
+    protected static Object readObject(QJsonReader reader, int token, Class<?> type, Object current) throws IOException {
+        return JsonBinder.bindOther(reader, token, type, current);
+    }
+
+    protected static Collection newCollection(Class<?> type) {
+        return JsonBinder.newCollection(type);
+    }
+
+    protected static Map newMap(Class<?> type) {
+        return JsonBinder.newMap(type);
+    }
+
+    // writing, see JsonParser for the rules
+
+    protected final int value(Appendable out, int written, String jsonName, Object value) throws IOException {
+        return PARSER.writeProperty(out, written, notNull, jsonName, JsonBindPlan.KIND_OTHER, value);
+    }
+
+    protected final int value(Appendable out, int written, String jsonName, long value) throws IOException {
+        written = JsonParser.writeName(out, written, jsonName);
+        JsonParser.writeLong(value, out);
+        return written;
+    }
+
+    protected final int value(Appendable out, int written, String jsonName, boolean value) throws IOException {
+        written = JsonParser.writeName(out, written, jsonName);
+        out.append(value ? "true" : "false");
+        return written;
+    }
+
+    protected final int collection(Appendable out, int written, String jsonName, Collection<?> value)
+            throws IOException {
+        return PARSER.writeProperty(out, written, notNull, jsonName, JsonBindPlan.KIND_COLLECTION, value);
+    }
+
+    protected final int array(Appendable out, int written, String jsonName, Object value) throws IOException {
+        return PARSER.writeProperty(out, written, notNull, jsonName, JsonBindPlan.KIND_ARRAY, value);
+    }
+
+    protected final int object(Appendable out, int written, String jsonName, Object value) throws IOException {
+        return PARSER.writeProperty(out, written, notNull, jsonName, JsonBindPlan.KIND_OBJECT, value);
+    }
+
+    protected final int enumValue(Appendable out, int written, String jsonName, Enum<?> value) throws IOException {
+        return PARSER.writeProperty(out, written, notNull, jsonName, JsonBindPlan.KIND_ENUM, value);
+    }
+}
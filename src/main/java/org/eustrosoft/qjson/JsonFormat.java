@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Numbers as {@link JsonParser} always wrote them with String.format("%d") and String.format("%f"),
+ * without a Formatter per number: %f is the shortest decimal of the double (Double.toString())
+ * rounded half up to 6 digits after the point. Like String.format() it follows the default
+ * FORMAT locale (digits and decimal separator).
+ */
+final class JsonFormat {
+    private static final int FIXED_SCALE = 6;
+
+    private static volatile Symbols symbols = new Symbols(Locale.ROOT);
+
+    private JsonFormat() {
+    }
+
+    static void writeInteger(long value, Appendable out) throws IOException {
+        Symbols s = symbols();
+        if (s.plain && out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            s.append(Long.toString(value), out);
+        }
+    }
+
+    static void writeFixed(double value, Appendable out) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append(Double.toString(value)); // NaN, Infinity, -Infinity as %f
+            return;
+        }
+        String text;
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            text = Long.toString((long) value) + ".000000"; // exact integer
+            if (value == 0 && 1 / value < 0) {
+                text = "-" + text; // -0.0
+            }
+        } else {
+            text = new BigDecimal(Double.toString(value)).setScale(FIXED_SCALE, RoundingMode.HALF_UP).toPlainString();
+            if (value < 0 && text.charAt(0) != '-') {
+                text = "-" + text; // rounded to zero keeps the sign
+            }
+        }
+        symbols().append(text, out);
+    }
+
+    private static Symbols symbols() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        Symbols s = symbols;
+        if (s.locale != locale) {
+            symbols = s = new Symbols(locale);
+        }
+        return s;
+    }
+
+    // digits and decimal separator of locale
+    private static final class Symbols {
+        final Locale locale;
+        final char zero;
+        final char separator;
+        final boolean plain; // ASCII digits and '.'
+
+        Symbols(Locale locale) {
+            DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.zero = dfs.getZeroDigit();
+            this.separator = dfs.getDecimalSeparator();
+            this.plain = zero == '0' && separator == '.';
+        }
+
+        // text of number with ASCII digits and '.' in this locale
+        void append(String text, Appendable out) throws IOException {
+            if (plain) {
+                out.append(text);
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    out.append((char) (zero + (c - '0')));
+                } else if (c == '.') {
+                    out.append(separator);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+    }
+}
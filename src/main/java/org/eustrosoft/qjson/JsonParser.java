@@ -1,345 +1,338 @@
 package org.eustrosoft.qjson;
 
-import org.eustrosoft.qjson.annotations.JsonIgnore;
-import org.eustrosoft.qjson.annotations.JsonNotNull;
-import sun.reflect.generics.reflectiveObjects.ParameterizedTypeImpl;
-
 import java.io.IOException;
-import java.io.StringReader;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.lang.reflect.Array;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
-import static org.eustrosoft.qjson.Constants.COMMA;
 import static org.eustrosoft.qjson.Constants.EMPTY_ARR;
 import static org.eustrosoft.qjson.Constants.EMPTY_OBJ;
-import static org.eustrosoft.qjson.Constants.END_ARR;
-import static org.eustrosoft.qjson.Constants.END_OBJ;
 import static org.eustrosoft.qjson.Constants.NULL;
-import static org.eustrosoft.qjson.Constants.START_ARR;
-import static org.eustrosoft.qjson.Constants.START_OBJ;
 
 public class JsonParser {
+    /**
+     * collections with fewer items are written by the calling thread, see setParallel()
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
 
-    public <T> T parseJson(Class<T> obj, String json) throws IllegalAccessException, IOException, InstantiationException {
-        T object = obj.newInstance();
-        return processJsonRecursively(object, json);
-    }
+    private ForkJoinPool parallelPool; // null: every collection is written by the calling thread
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
-    public <T> T processJsonRecursively(T obj, String json) throws IOException, IllegalAccessException, InstantiationException {
-        Field[] classFields = getClassFields(obj.getClass());
-        QJson qJson = new QJson();
-        qJson.parseJSONReader(new StringReader(json));
+    /**
+     * write collections of threshold items or more by threads of pool (its parallelism is the number
+     * of threads): slices of items are written into buffers of their own and appended in order, the
+     * text is the same as one thread writes. null pool (the default) writes everything by the calling thread
+     */
+    public void setParallel(ForkJoinPool pool, int threshold) {
+        this.parallelPool = pool;
+        this.parallelThreshold = threshold;
+    }
 
+    public ForkJoinPool getParallelPool() {
+        return parallelPool;
+    }
 
-        for (Field field : classFields) {
-            field.setAccessible(true);
-            Class<?> fieldType = field.getType();
-            String fieldName = field.getName();
-            try {
-                JsonIgnore annotation = field.getAnnotation(JsonIgnore.class);
-                if (annotation != null) {
-                    continue;
-                }
-                processField(obj, qJson, field, fieldType, fieldName);
-            } catch (Exception ex) {
-                parseJson(field.get(obj).getClass(), qJson.getItem(fieldName).toString());
-            }
-        }
-        return (T) obj;
+    public int getParallelThreshold() {
+        return parallelThreshold;
     }
 
-    private <T> void processField(T obj, QJson qJson, Field field,
-                                  Class<?> fieldType, String fieldName
-    ) throws IllegalAccessException {
-        if (field == null || qJson == null) {
-            return;
-        }
-        if (Number.class.isAssignableFrom(fieldType)) {
-            field.set(obj, getRightNumber(fieldType, toStr(getQJsonValueOrNull(qJson, fieldName))));
-        } else if (Collection.class.isAssignableFrom(fieldType)) {
-            Collection collection = null;
-            if (Set.class.isAssignableFrom(fieldType)) {
-                collection = new HashSet();
-            } else if (List.class.isAssignableFrom(fieldType)) {
-                collection = new ArrayList();
-            }
-            QJson colJson = qJson.getItemQJson(fieldName);
-            int index = 0;
-            try {
-                while (true) {
-                    Object item = colJson.getItem(index);
-                    if (item instanceof CharSequence) {
-                        item = "\"" + item + "\"";
-                    }
-                    if (!isSimpleType(item)) {
-                        try {
-                            if (!isSimpleType(field.getGenericType())) {
-                                item = processJsonRecursively(
-                                        ((Class<?>) (((ParameterizedTypeImpl) field.getGenericType()).getActualTypeArguments()[0])).newInstance(),
-                                        item.toString()
-                                );
-                            }
-                        } catch (Exception ex) {
-                            item = processJsonRecursively(collection, item.toString());
-                        }
-                    }
-                    collection.add(item);
-                    index++;
-                }
-            } catch (Exception exception) {
-                // ignore
-            }
-            field.set(obj, collection);
-        } else if (Map.class.isAssignableFrom(fieldType)) {
-            Map map = null;
-            if (LinkedHashMap.class.isAssignableFrom(fieldType)) {
-                map = new LinkedHashMap();
-            } else {
-                map = new HashMap();
-            }
-            int index = 0;
-            QJson mapJson = qJson.getItemQJson(fieldName);
-            try {
-                while (true) {
-                    Object item = mapJson.getItem(index);
-                    if (item instanceof CharSequence) {
-                        item = "\"" + item + "\"";
-                    }
-                    if (!isSimpleType(item)) {
-                        item = processJsonRecursively(fieldType.newInstance(), mapJson.getItem(index).toString());
-                    }
-                    map.putIfAbsent(mapJson.getItemName(index), item);
-                    index++;
-                }
-            } catch (Exception exception) {
-                // ignore
-            }
-            field.set(obj, map);
-        } else {
-            try {
-                Object item = null;
-                try {
-                    item = qJson.getItem(fieldName);
-                    if (isSimpleType(item)) {
-                        field.set(obj, fieldType.cast(item));
-                    } else {
-                        field.set(obj, processJsonRecursively(fieldType.newInstance(), qJson.getItem(fieldName).toString()));
-                    }
-                } catch (Exception ex) {
-                    // value is null or empty
-                }
-            } catch (Exception ex) {
-                // skip
-            }
-        }
+    public <T> T parseJson(Class<T> obj, String json) throws IllegalAccessException, IOException, InstantiationException {
+        T object = newInstance(obj);
+        return processJsonRecursively(object, json);
     }
 
-    private String toStr(Object value) {
-        if (Objects.isNull(value)) {
+    /**
+     * bind the next object of reader to new instance of obj, reading up to its end token,
+     * so items of an array are read by calling it again after TOKEN_START_ARRAY
+     *
+     * @return bound object or null at the end of array or document
+     */
+    public <T> T parseJson(Class<T> obj, QJsonReader reader) throws IllegalAccessException, IOException, InstantiationException {
+        int token = reader.nextToken();
+        if (token == QJsonReader.TOKEN_END_ARRAY || token == QJsonReader.TOKEN_END_DOCUMENT) {
             return null;
         }
-        return value.toString();
+        if (token != QJsonReader.TOKEN_START_OBJECT && token != QJsonReader.TOKEN_START_ARRAY) {
+            throw QJson.parseLiteralException(QJson.CONTEXT_VALUE, String.valueOf(reader.getString()));
+        }
+        return JsonBinder.bindObject(reader, newInstance(obj));
     }
 
-    private Object getQJsonValueOrNull(QJson qJson, String paramName) {
-        try {
-            return qJson.getItem(paramName);
-        } catch (Exception ex) {
-            return null;
-        }
+    private static <T> T newInstance(Class<T> type) throws IllegalAccessException, InstantiationException {
+        JsonCodec<T> codec = JsonCodec.of(type);
+        return codec != null ? codec.newInstance() : type.newInstance();
     }
 
-    private Number getRightNumber(Class<?> fieldType, String val) {
-        if (val == null) {
-            return null;
-        }
-        if (Short.class.isAssignableFrom(fieldType) || short.class.isAssignableFrom(fieldType)) {
-            return Short.parseShort(val);
-        }
-        if (Long.class.isAssignableFrom(fieldType) || long.class.isAssignableFrom(fieldType)) {
-            return Long.parseLong(val);
-        }
-        if (Integer.class.isAssignableFrom(fieldType) || int.class.isAssignableFrom(fieldType)) {
-            return Integer.parseInt(val);
-        }
-        if (Double.class.isAssignableFrom(fieldType) || double.class.isAssignableFrom(fieldType)) {
-            return Double.valueOf(val);
-        }
-        if (Float.class.isAssignableFrom(fieldType) || float.class.isAssignableFrom(fieldType)) {
-            return Float.valueOf(val);
-        }
-        if (BigDecimal.class.isAssignableFrom(fieldType)) {
-            return BigDecimal.valueOf(Double.parseDouble(val));
-        }
-        if (BigInteger.class.isAssignableFrom(fieldType)) {
-            return BigInteger.valueOf(Long.parseLong(val));
-        }
-        return 0;
+    public <T> T processJsonRecursively(T obj, String json) throws IOException, IllegalAccessException, InstantiationException {
+        QJsonReader reader = new QJsonReader(json);
+        reader.nextToken();
+        return JsonBinder.bindObject(reader, obj);
     }
 
     public String parseObject(Object object) throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        writeObject(object, buffer);
+        return buffer.toString();
+    }
+
+    public String parseCollection(Collection<?> collection) throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        writeCollection(collection, buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * write object as json to out in one pass, same text as parseObject() returns
+     */
+    public void writeObject(Object object, Appendable out) throws IOException {
         if (object == null) {
-            return NULL;
+            out.append(NULL);
+            return;
         }
-        StringBuilder buffer = new StringBuilder();
-        buffer.append(START_OBJ);
-        Map<String, Object> classFields = getClassFields(new LinkedHashMap<>(), object);
-        for (Map.Entry<String, Object> entry : classFields.entrySet()) {
-            buffer.append(String.format("\"%s\":%s", entry.getKey(), entry.getValue()));
-            buffer.append(COMMA);
+        JsonCodec<Object> codec = JsonCodec.of(object.getClass());
+        if (codec != null) {
+            codec.write(object, out);
+            return;
         }
-        String str = buffer.toString();
-        if (str.lastIndexOf(COMMA) == str.length() - 1) {
-            str = str.replaceAll("[,]$", END_OBJ);
-        } else {
-            str = str + END_OBJ;
+        JsonBindPlan plan = JsonBindPlan.of(object.getClass());
+        out.append('{');
+        int written = 0;
+        for (JsonBindPlan.Property property : plan.serialized) {
+            JsonAccessor accessor = property.accessor;
+            if (property.kind != JsonBindPlan.KIND_PRIMITIVE) {
+                written = writeProperty(out, written, plan.notNull, property.jsonName, property.kind, accessor.get(object));
+            } else if (property.type == int.class || property.type == long.class || property.type == short.class) {
+                written = writeName(out, written, property.jsonName);
+                writeLong(accessor.getLong(object), out);
+            } else if (property.type == boolean.class) {
+                written = writeName(out, written, property.jsonName);
+                out.append(accessor.getBoolean(object) ? "true" : "false");
+            } else {
+                written = writeProperty(out, written, plan.notNull, property.jsonName, JsonBindPlan.KIND_OTHER,
+                        accessor.get(object));
+            }
         }
-        return str;
+        out.append('}');
     }
 
-    public String parseCollection(Collection<?> collection) throws Exception {
+    /**
+     * write collection as json array to out in one pass, same text as parseCollection() returns
+     */
+    public void writeCollection(Collection<?> collection, Appendable out) throws IOException {
         if (collection == null || collection.isEmpty()) {
-            return EMPTY_ARR;
+            out.append(EMPTY_ARR);
+            return;
         }
-        Object[] objects = collection.toArray();
-        List<String> finalStrings = new ArrayList<>(6);
-        for (Object ob : objects) {
-            finalStrings.add(obj2str(ob));
+        out.append('[');
+        ForkJoinPool pool = parallelPool;
+        if (pool != null && collection.size() >= parallelThreshold) {
+            QJsonParallel.write(this, collection, out, pool);
+            out.append(']');
+            return;
+        }
+        boolean first = true;
+        for (Object item : collection) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            writeValue(item, out);
         }
-        return String.format("%s%s%s", START_ARR, String.join(COMMA, finalStrings), END_ARR);
+        out.append(']');
     }
 
-    private Map<String, Object> getClassFields(Map<String, Object> objMap, Object obj)
-            throws Exception {
-        Class<?> clazz = obj.getClass();
-        JsonNotNull nonNull = clazz.getAnnotation(JsonNotNull.class);
-        Field[] declaredFields = getClassFields(clazz);
-        for (Field field : declaredFields) {
-            JsonIgnore annotation = field.getAnnotation(JsonIgnore.class);
-            if (annotation != null) {
-                continue;
+    /**
+     * write "name":value of property unless notNull skips value (null, empty collection, object without
+     * properties)
+     *
+     * @return properties written to the object so far
+     */
+    int writeProperty(Appendable out, int written, boolean notNull, String jsonName, int kind, Object value)
+            throws IOException {
+        if (value == null) {
+            if (notNull) {
+                return written;
             }
-            String fieldName = field.getName();
-            field.setAccessible(true);
-
-            Object value = null;
+            written = writeName(out, written, jsonName);
+            out.append(kind == JsonBindPlan.KIND_COLLECTION ? EMPTY_ARR : NULL);
+            return written;
+        }
+        switch (kind) {
+            case JsonBindPlan.KIND_ENUM:
+                written = writeName(out, written, jsonName);
+                writeString(value.toString(), out);
+                return written;
+            case JsonBindPlan.KIND_COLLECTION:
+                Collection<?> collection = (Collection<?>) value;
+                if (notNull && collection.isEmpty()) {
+                    return written;
+                }
+                written = writeName(out, written, jsonName);
+                writeCollection(collection, out);
+                return written;
+            case JsonBindPlan.KIND_OBJECT:
+                return writeNested(out, written, notNull, jsonName, value);
+            case JsonBindPlan.KIND_ARRAY:
+                if (notNull && Array.getLength(value) == 0) {
+                    return written;
+                }
+                written = writeName(out, written, jsonName);
+                writeArray(value, out);
+                return written;
+            default:
+                if (value instanceof Number || value instanceof CharSequence || value instanceof Boolean) {
+                    written = writeName(out, written, jsonName);
+                    writeValue(value, out);
+                    return written;
+                }
+                return writeNested(out, written, notNull, jsonName, value);
+        }
+    }
 
-            if (field.getType().isEnum()) {
-                try {
-                    value = obj2str(field.get(obj).toString());
-                } catch (Exception ignored) {}
-            } else if (Collection.class.isAssignableFrom(field.getType())) {
-                Collection o = (Collection) field.get(obj);
-                value = parseCollection(o);
-            } else if (field.getType().getSimpleName().equals(Object.class.getSimpleName())) {
-                value = parseObject(field.get(obj));
-            } else {
-                value = obj2str(field.get(obj));
+    // int[] and long[] items as %d, double[] ones as %f, like the boxed values are written
+    private static void writeArray(Object array, Appendable out) throws IOException {
+        out.append('[');
+        if (array instanceof double[]) {
+            double[] doubles = (double[]) array;
+            for (int i = 0; i < doubles.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                JsonFormat.writeFixed(doubles[i], out);
             }
-            if (nonNull != null) {
-                assert value != null;
-                if (value.equals("null") || value.equals(EMPTY_ARR) || value.equals(EMPTY_OBJ)) {
-                    continue;
+        } else if (array instanceof long[]) {
+            long[] longs = (long[]) array;
+            for (int i = 0; i < longs.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writeLong(longs[i], out);
+            }
+        } else {
+            int[] ints = (int[]) array;
+            for (int i = 0; i < ints.length; i++) {
+                if (i > 0) {
+                    out.append(',');
                 }
+                writeLong(ints[i], out);
             }
-            objMap.put(fieldName, value);
         }
-        return objMap;
+        out.append(']');
     }
 
-    private String obj2str(Object obj) throws Exception {
-        if (obj == null) {
-            return NULL;
+    // object value, with notNull it is written to a buffer first to see if it is {} (a StringBuilder
+    // output is the buffer itself, cut back if it is)
+    private int writeNested(Appendable out, int written, boolean notNull, String jsonName, Object value)
+            throws IOException {
+        if (!notNull) {
+            written = writeName(out, written, jsonName);
+            writeObject(value, out);
+            return written;
+        }
+        if (out instanceof StringBuilder) {
+            StringBuilder sb = (StringBuilder) out;
+            int mark = sb.length();
+            int named = writeName(out, written, jsonName);
+            int start = sb.length();
+            writeObject(value, out);
+            if (sb.length() - start == EMPTY_OBJ.length() && sb.indexOf(EMPTY_OBJ, start) == start) {
+                sb.setLength(mark);
+                return written;
+            }
+            return named;
+        }
+        StringBuilder buffer = new StringBuilder();
+        writeObject(value, buffer);
+        if (buffer.length() == EMPTY_OBJ.length() && EMPTY_OBJ.contentEquals(buffer)) {
+            return written;
         }
-        String finalString;
-        if (obj instanceof Number) {
-            finalString = getNumberValue((Number) obj);
+        written = writeName(out, written, jsonName);
+        out.append(buffer);
+        return written;
+    }
+
+    static int writeName(Appendable out, int written, String jsonName) throws IOException {
+        if (written > 0) {
+            out.append(',');
+        }
+        out.append(jsonName);
+        return written + 1;
+    }
+
+    // null, number, string, boolean or object
+    void writeValue(Object obj, Appendable out) throws IOException {
+        if (obj == null) {
+            out.append(NULL);
+        } else if (obj instanceof Number) {
+            writeNumber((Number) obj, out);
         } else if (obj instanceof CharSequence) {
-            finalString = String.format("\"%s\"", getString(obj.toString()));
+            writeString((CharSequence) obj, out);
         } else if (obj instanceof Boolean) {
-            finalString = String.format("%s", obj.toString());
+            out.append(obj.toString());
         } else {
-            finalString = parseObject(obj);
+            writeObject(obj, out);
         }
-        return finalString;
     }
 
-    private String getNumberValue(Number number) {
+    // integers as %d, Byte as %b (always true), others as %f did
+    private static void writeNumber(Number number, Appendable out) throws IOException {
         if (number instanceof Long || number instanceof Integer || number instanceof Short) {
-            return String.format("%d", number.longValue());
-        }
-        if (number instanceof Float || number instanceof Double) {
-            return String.format("%f", number.doubleValue());
-        }
-        if (number instanceof Byte) {
-            return String.format("%b", number.byteValue());
+            writeLong(number.longValue(), out);
+        } else if (number instanceof Byte) {
+            out.append("true");
+        } else {
+            JsonFormat.writeFixed(number.doubleValue(), out);
         }
-        return String.format("%f", number.doubleValue());
     }
 
-    private Field[] getClassFields(Class<?> clazz) {
-        List<Field> fields = new ArrayList<>();
-        try {
-            Class<?> cur = clazz;
-            while (true) {
-                fields.addAll(Arrays.asList(cur.getDeclaredFields()));
-                Class<?> superclass = clazz.getSuperclass();
-                if (superclass.getSimpleName().equals(cur.getSimpleName())) {
-                    break;
-                }
-                cur = superclass;
-            }
-        } catch (NullPointerException ex) {
-            // All classes searched
-        }
-        return fields.toArray(new Field[0]);
+    static void writeLong(long value, Appendable out) throws IOException {
+        JsonFormat.writeInteger(value, out);
     }
 
-    private boolean isSimpleType(Object obj) {
-        Class<?> aClass = obj.getClass();
-        return Number.class.isAssignableFrom(aClass) ||
-                CharSequence.class.isAssignableFrom(aClass) ||
-                Boolean.class.isAssignableFrom(aClass);
+    private static void writeString(CharSequence str, Appendable out) throws IOException {
+        out.append('"');
+        escape(str, out);
+        out.append('"');
     }
 
-    private String getString(String str) {
+    static String escape(String str) {
         if (str == null) {
             return "null";
         }
-        StringBuilder buffer = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(str.length());
+        try {
+            escape(str, buffer);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // never, StringBuilder
+        }
+        return buffer.toString();
+    }
+
+    // append str with \n, \r, " and \\ escaped, unescaped runs are appended at once
+    static void escape(CharSequence str, Appendable out) throws IOException {
         int length = str.length();
-        int i = 0;
-        while (i < length) {
-            char c = str.charAt(i);
-            switch (c) {
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            String escaped;
+            switch (str.charAt(i)) {
                 case '\n':
-                    buffer.append("\\n");
+                    escaped = "\\n";
                     break;
                 case '\r':
-                    buffer.append("\\r");
+                    escaped = "\\r";
                     break;
                 case '"':
-                    buffer.append("\\\"");
+                    escaped = "\\\"";
                     break;
                 case '\\':
-                    buffer.append("\\\\");
+                    escaped = "\\\\";
                     break;
                 default:
-                    buffer.append(c);
+                    continue;
             }
-            i++;
+            out.append(str, run, i).append(escaped);
+            run = i + 1;
         }
-        return buffer.toString();
+        out.append(str, run, length);
     }
-}
\ No newline at end of file
+}
@@ -7,14 +7,21 @@
 package org.eustrosoft.qjson;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class QJson {
     // next 5 constants not used yet (2023-04-28) remove it?
@@ -43,21 +50,21 @@ public class QJson {
     public static final int QJSON_TYPE_ARRAY = 2;
     public static final int QJSON_TYPE_PARSER = 3; //
     public static final int QJSON_TYPE_VALUE = 4; // one-value container
-    private static final int CONTEXT_GLOBAL = 1;
+    static final int CONTEXT_GLOBAL = 1;
     public static final int QJSON_ITEM_TYPE_QJSON = 1;
     public static final int QJSON_ITEM_TYPE_STRING = 2;
     public static final int QJSON_ITEM_TYPE_LONG = 3;
     public static final int QJSON_ITEM_TYPE_NUMBER = 4; //literal (String) of number (for float,decimal and so on)
-    private static final int CONTEXT_OBJECT = 2;
+    static final int CONTEXT_OBJECT = 2;
     public static final int QJSON_PRINT_MODE_ROW = 1;
     //
-    private static final int CONTEXT_ARRAY = 3;
-    private static final int CONTEXT_ARRAY_VALUE = 4;
-    private static final int CONTEXT_NAME = 5;
-    private static final int CONTEXT_NAME_AFTER = 6;
-    private static final int CONTEXT_VALUE = 7;
-    private static final int CONTEXT_VALUE_STRING = 8;
-    private static final int CONTEXT_VALUE_LITERAL = 9;
+    static final int CONTEXT_ARRAY = 3;
+    static final int CONTEXT_ARRAY_VALUE = 4;
+    static final int CONTEXT_NAME = 5;
+    static final int CONTEXT_NAME_AFTER = 6;
+    static final int CONTEXT_VALUE = 7;
+    static final int CONTEXT_VALUE_STRING = 8;
+    static final int CONTEXT_VALUE_LITERAL = 9;
     // static version fields & methods
     private static int ver_major = 0;
     private static int ver_minor = 6;
@@ -66,13 +73,28 @@ public class QJson {
     private static String COPYRIGHT = "Alex V Eustrop & EustroSoft.org 2009-2023";
     private static String LICENSE = "BALES, MIT or BSD on your choice - see http://bales.eustrosoft.org";
     private static String LICENSE_DETAIL = "you can do with this source code anything that you want while keeping the list of its authors until this code will be rewritten by you";
+    // objects with more names than this get hash index for getNameIndex(), smaller ones are scanned
+    private static final int NAME_INDEX_THRESHOLD = 8;
+    private static final Object[] NO_ITEMS = new Object[0];
+    // documents smaller than this (bytes or chars) are not parsed in parallel, see parseJSONParallel()
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    // arrays with fewer items are printed by one thread, see setParallelPrint()
+    public static final int DEFAULT_PRINT_THRESHOLD = 10000;
     // DEBUGGING METHODS SECTION
     private static Writer debug = null;
-    // instance fields : 4 words or 4*4=16 bytes for each instance at least
+    private static volatile QJsonSymbols shared_symbols = null; // names of all parses, null for a table per parse
+    private static volatile ForkJoinPool print_pool = null; // threads of writeJSONString() for big arrays, null for none
+    private static volatile int print_threshold = DEFAULT_PRINT_THRESHOLD;
+    // instance fields : 6 words or 6*4=24 bytes for each instance at least
     private int type = QJSON_TYPE_OBJECT; // QJSON_TYPE_OBJECT,  QJSON_TYPE_ARRAY, QJSON_TYPE_PARSER?
     private int print_mode = QJSON_PRINT_MODE_COLUMN; // QJSON_PRINT_MODE_ROW, QJSON_PRINT_MODE_COLUMN
-    private Vector names;
-    private Vector items;
+    private int count; // used slots of items[] (and names[])
+    private Object[] items;
+    private String[] names; // parallel to items[], null while all names are null (always so for arrays)
+    // HashMap<String, Integer> name -> last index, built on demand for big objects,
+    // or QJsonShape if names[] is shared with other parsed objects (and has index of its own)
+    private Object name_index;
+    private Object packed; // long[] or double[] instead of items[] for parsed array of Long only or Double only items
 
     // Constructors
     public QJson() {
@@ -160,6 +182,11 @@ public class QJson {
         out.write(literal); //as is
     }
 
+    private static void write_jlong(Writer out, long value) throws IOException {
+        if (out instanceof QJsonContext.Output) ((QJsonContext.Output) out).writeLong(value); // no String
+        else out.write(Long.toString(value));
+    }
+
     public static boolean isCharInClass(int c, String char_class) {
         return (char_class.indexOf(c) != -1);
     }
@@ -241,6 +268,13 @@ public class QJson {
         if (LITERAL_NULL.equals(literal)) return (null);
         if (LITERAL_TRUE.equals(literal)) return (Boolean.TRUE);
         if (LITERAL_FALSE.equals(literal)) return (Boolean.FALSE);
+        Object number = QJsonNumber.parse(literal);
+        if (number != null) return (number);
+        return (literal2valueSlow(literal));
+    } // literal2value(String literal)
+
+    // literals which are not plain decimal numbers: "1f", "2D" and so on, or errors
+    static Object literal2valueSlow(String literal) throws IOException {
         try {
             Long value = Long.valueOf(literal);
             return (value);
@@ -254,7 +288,44 @@ public class QJson {
 //if(!isCharInClass(literal,SZ_CLASS_LITERAL_NUMBER) throw(parseException(CONTEXT_VALUE_LITERAL,c)); //sketch
         throw (parseLiteralException(CONTEXT_VALUE_LITERAL, literal)); //
 //return(literal);
-    } // literal2value(String literal)
+    } // literal2valueSlow(String literal)
+
+    /**
+     * share one table of object names by all parses (and addItem() names), so every name is one
+     * String for all trees; null (the default) creates every name. For a table of one parse
+     * see {@link QJsonReader#setSymbols(QJsonSymbols)} and parseDocument()
+     */
+    public static void setSymbols(QJsonSymbols symbols) {
+        shared_symbols = symbols;
+    }
+
+    public static QJsonSymbols getSymbols() {
+        return (shared_symbols);
+    }
+
+    /**
+     * print arrays of threshold items or more by threads of pool: writeJSONString() and toJSONString()
+     * of all trees print slices of items into buffers of their own and write them in order, the text
+     * is the same as one thread prints. null pool (the default) prints everything by the calling thread
+     */
+    public static void setParallelPrint(ForkJoinPool pool, int threshold) {
+        print_threshold = threshold;
+        print_pool = pool;
+    }
+
+    public static ForkJoinPool getParallelPrintPool() {
+        return (print_pool);
+    }
+
+    public static int getParallelPrintThreshold() {
+        return (print_threshold);
+    }
+
+    // reader which takes names from the shared table, if it is set and reader has no table of its own
+    private static QJsonReader withSymbols(QJsonReader reader) {
+        if (reader.getSymbols() == null) reader.setSymbols(shared_symbols);
+        return (reader);
+    }
 
     public static void setDebug(Writer debug_writer) {
         debug = debug_writer;
@@ -357,8 +428,27 @@ public class QJson {
     }
 
     public void clear() {
-        items = new Vector();
-        names = new Vector();
+        count = 0;
+        items = NO_ITEMS;
+        names = null;
+        name_index = null;
+        packed = null;
+    }
+
+    /**
+     * @return deeply immutable copy of this tree (this one is not changed), which any number of
+     * threads may read without locks; its changes throw UnsupportedOperationException.
+     * Lookup index of names is built at once, objects with the same names share them,
+     * arrays of numbers are packed. Items of other types than String, numbers, Boolean
+     * and QJson are frozen as their toString(), as they are printed.
+     * Returns this if the tree is frozen already.
+     */
+    public QJson freeze() {
+        return (QJsonFrozen.freeze(this));
+    }
+
+    public boolean isFrozen() {
+        return (false);
     }
 
     //
@@ -367,26 +457,146 @@ public class QJson {
     } // check value is {null, String, Long, QJson } or can be converted toString(). null if failed
 
     private String name2qname(String name) {
-        return (name);
-    } // can be used to return String object.equals(name) from dictionary (to minimize memory usage)
+        QJsonSymbols symbols = shared_symbols;
+        return (symbols == null || name == null ? name : symbols.intern(name));
+    } // String object.equals(name) from the shared table of names (to minimize memory usage), if it is set
 
     public int size() {
-        return (items.size());
+        return (count);
     }
 
     public void addItem(Object value) {
-        names.add(null);
-        items.add(value2qvalue(value));
+        add(null, value2qvalue(value));
     }
 
     public void addItem(String name, Object value) {
-        names.add(name2qname(name));
-        items.add(value2qvalue(value));
+        add(name2qname(name), value2qvalue(value));
     }
 
     public void addItemArray(String name, Object[] values) {
-        names.add(name2qname(name));
-        items.add(newQJsonFromArray(values));
+        add(name2qname(name), newQJsonFromArray(values));
+    }
+
+    void add(String name, Object value) {
+        if (packed != null) {
+            if (name == null && addPacked(value)) return;
+            unpack();
+        }
+        if (name_index instanceof QJsonShape) unshare();
+        if (count == items.length) grow();
+        if (name != null && names == null) names = new String[items.length];
+        if (names != null) names[count] = name;
+        items[count] = value;
+        indexName(name, count);
+        count++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void indexName(String name, int index) {
+        if (name_index != null) ((HashMap<String, Integer>) name_index).put(name, index); // later duplicate wins
+    }
+
+    private void grow() {
+        int capacity = capacity(items.length);
+        items = Arrays.copyOf(items, capacity);
+        if (names != null) names = Arrays.copyOf(names, capacity);
+    }
+
+    private static int capacity(int length) {
+        return (length < 4 ? 4 : length + (length >> 1));
+    }
+
+    // number item of array being parsed: arrays of Long only or Double only items are kept packed
+    void addNumber(QJsonReader reader) throws IOException {
+        int kind = reader.scanNumber();
+        if (count == 0 && packed == null) {
+            if (kind == QJsonNumber.KIND_LONG) packed = new long[4];
+            else if (kind == QJsonNumber.KIND_DOUBLE) packed = new double[4];
+        }
+        if (kind == QJsonNumber.KIND_LONG && packed instanceof long[]) addLong(reader.scannedLong());
+        else if (kind == QJsonNumber.KIND_DOUBLE && packed instanceof double[]) addDouble(reader.scannedDouble());
+        else add(null, reader.getValue()); // mixed array, not packed from here
+    }
+
+    // add value to packed items if it is of their type
+    private boolean addPacked(Object value) {
+        if (packed instanceof long[] && value instanceof Long) addLong((Long) value);
+        else if (packed instanceof double[] && value instanceof Double) addDouble((Double) value);
+        else return (false);
+        return (true);
+    }
+
+    private void addLong(long value) {
+        long[] a = (long[]) packed;
+        if (count == a.length) packed = a = Arrays.copyOf(a, capacity(a.length));
+        a[count] = value;
+        indexName(null, count);
+        count++;
+    }
+
+    private void addDouble(double value) {
+        double[] a = (double[]) packed;
+        if (count == a.length) packed = a = Arrays.copyOf(a, capacity(a.length));
+        a[count] = value;
+        indexName(null, count);
+        count++;
+    }
+
+    // move packed items to items[] as Long or Double, before an item of other type is stored
+    private void unpack() {
+        Object[] v = new Object[packed instanceof long[] ? ((long[]) packed).length : ((double[]) packed).length];
+        for (int i = 0; i < count; i++) {
+            v[i] = item(i);
+        }
+        items = v;
+        packed = null;
+    }
+
+    // own copy of shared names[], before a name is added
+    private void unshare() {
+        names = Arrays.copyOf(names, items.length);
+        name_index = null;
+    }
+
+    // parser finished this object (all names parsed): share names[] with objects of the same names parsed before
+    private void share(QJsonReader reader, int hash) {
+        if (names == null || count == 0 || type != QJSON_TYPE_OBJECT) return;
+        QJsonShape s = reader.shapes().share(names, count, hash);
+        names = s.names;
+        name_index = s;
+    }
+
+    // names of items so far are the first names of shape, which this object does not follow anymore
+    private void unfollow(QJsonShape shape) {
+        if (count == 0) return;
+        names = new String[items.length];
+        System.arraycopy(shape.names, 0, names, 0, count);
+    }
+
+    // node which items QJsonFeeder has added is complete: ends it as readItems() ends a node,
+    // nested objects share names of hash with other objects of the parse
+    void endItems(QJsonReader reader, int hash, boolean nested) {
+        if (nested) share(reader, hash);
+        trim();
+    }
+
+    // drop unused capacity, called when parser finished this node
+    private void trim() {
+        if (packed instanceof long[]) {
+            if (((long[]) packed).length != count) packed = Arrays.copyOf((long[]) packed, count);
+            return;
+        }
+        if (packed instanceof double[]) {
+            if (((double[]) packed).length != count) packed = Arrays.copyOf((double[]) packed, count);
+            return;
+        }
+        if (items.length == count) return;
+        items = count == 0 ? NO_ITEMS : Arrays.copyOf(items, count);
+        if (names != null && names.length != count) names = Arrays.copyOf(names, count); // shared names[] are of count
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) throw (new ArrayIndexOutOfBoundsException(index));
     }
 
     public void setItem(String name, Object value) {
@@ -395,26 +605,60 @@ public class QJson {
     } // latest value
 
     public void setItem(int index, Object value) {
-        items.set(index, value2qvalue(value));
+        checkIndex(index);
+        value = value2qvalue(value);
+        if (packed instanceof long[] && value instanceof Long) {
+            ((long[]) packed)[index] = (Long) value;
+            return;
+        }
+        if (packed instanceof double[] && value instanceof Double) {
+            ((double[]) packed)[index] = (Double) value;
+            return;
+        }
+        if (packed != null) unpack();
+        items[index] = value;
     } // latest value
 
     public Vector getItemValues(String name) {
         Vector v = new Vector();
-        int i = 0;
-        while ((i = names.indexOf(name, i)) > 0) {
-            v.add(items.get(i));
+        for (int i = 0; i < count; i++) {
+            if (name == null ? getItemName(i) == null : name.equals(getItemName(i))) v.add(item(i));
         }
         return (v);
     } // all values for "name"
 
     public String getItemName(int index) {
-        return ((String) names.get(index));
+        checkIndex(index);
+        return (names == null ? null : names[index]);
     }
 
+    @SuppressWarnings("unchecked")
     public int getNameIndex(String name) {
-        return (names.lastIndexOf(name));
+        if (name_index instanceof QJsonShape) return (((QJsonShape) name_index).indexOf(name));
+        if (name_index == null) {
+            if (type == QJSON_TYPE_ARRAY || count <= NAME_INDEX_THRESHOLD) return (lastIndexOf(name));
+            buildNameIndex();
+        }
+        Integer index = ((HashMap<String, Integer>) name_index).get(name);
+        return (index == null ? -1 : index);
     } // last added element with the same name used
 
+    private int lastIndexOf(String name) {
+        if (names == null) return (name == null ? count - 1 : -1);
+        for (int i = count - 1; i >= 0; i--) {
+            if (name == null ? names[i] == null : name.equals(names[i])) return (i);
+        }
+        return (-1);
+    }
+
+    private void buildNameIndex() {
+        HashMap<String, Integer> index = new HashMap<String, Integer>(count * 2);
+        for (int i = 0; i < count; i++) {
+            index.put(names == null ? null : names[i], i);
+        }
+        name_index = index;
+    }
+
     public String[] listNames() {
         not_implemented();
         return(null);
@@ -425,7 +669,15 @@ public class QJson {
     }
 
     public Object getItem(int index) {
-        return (items.get(index));
+        checkIndex(index);
+        return (item(index));
+    }
+
+    // item of valid index, packed numbers are boxed
+    private Object item(int index) {
+        if (packed == null) return (items[index]);
+        if (packed instanceof long[]) return (Long.valueOf(((long[]) packed)[index]));
+        return (Double.valueOf(((double[]) packed)[index]));
     }
 
     public int getItemType(String name) {
@@ -473,6 +725,40 @@ public class QJson {
         return ((QJson) getItem(index));
     }
 
+    /**
+     * @return all items as new array, copied without boxing if parsed array has Long items only;
+     * ClassCastException or NullPointerException if some item is not Long
+     */
+    public long[] getLongArray() {
+        if (packed instanceof long[]) return (Arrays.copyOf((long[]) packed, count));
+        int size = size();
+        long[] a = new long[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = (Long) itemAt(i);
+        }
+        return (a);
+    }
+
+    /**
+     * @return all items as new array, copied without boxing if parsed array has numbers only
+     * (all Long or all Double); ClassCastException or NullPointerException if some item is not a number
+     */
+    public double[] getDoubleArray() {
+        if (packed instanceof double[]) return (Arrays.copyOf((double[]) packed, count));
+        int size = size();
+        double[] a = new double[size];
+        if (packed instanceof long[]) {
+            for (int i = 0; i < size; i++) {
+                a[i] = ((long[]) packed)[i];
+            }
+            return (a);
+        }
+        for (int i = 0; i < size; i++) {
+            a[i] = ((Number) itemAt(i)).doubleValue();
+        }
+        return (a);
+    }
+
 // END PARSING SECTION
 
     //
@@ -485,14 +771,14 @@ public class QJson {
     }
 
     public String toJSONString(int level) {
-        StringWriter sbw = new StringWriter();
-        StringBuffer sb = sbw.getBuffer();
+        QJsonContext.Output sbw = new QJsonContext.Output(); // see QJsonContext.toJSONString() to reuse it
+        StringBuilder sb = sbw.sb;
         try {
             writeJSONString(sbw, level);
         } catch (IOException ioe) {
             sb.append(ioe.toString());
         }
-        return (sbw.toString());
+        return (sb.toString());
     }
 
     public int writeJSONString(Writer out) throws IOException {
@@ -502,9 +788,9 @@ public class QJson {
     public int writeJSONString(Writer out, int level) throws IOException {
         String close_char = "";
         String close_item = "";
-        int count = items.size();
-        //int type = getType(); // use if getType() !== type
-        if (print_mode == QJSON_PRINT_MODE_COLUMN) {
+        int count = size();
+        int type = getType(); // fields of frozen node are its own
+        if (getPrintMode() == QJSON_PRINT_MODE_COLUMN) {
             int i = level;
             while (i-- > 0) {
                 close_item = close_item + " ";
@@ -512,18 +798,22 @@ public class QJson {
             close_item = "\n" + close_item;
         }
         if (type == QJSON_TYPE_OBJECT) {
-            out.write("{" + close_item);
+            out.write("{");
+            out.write(close_item);
             close_char = "}";
         } else if (type == QJSON_TYPE_ARRAY) {
-            out.write("[" + close_item);
+            out.write("[");
+            out.write(close_item);
             close_char = "]";
         } else if (type == QJSON_TYPE_NULL) {
             out.write("null");
             return (0);
         }
-        for (int i = 0; i < count; i++) {
-            print_item(out, i, level);
-            if (i != (count - 1)) out.write("," + close_item);
+        ForkJoinPool pool = print_pool;
+        if (pool != null && type == QJSON_TYPE_ARRAY && count >= print_threshold && !(this instanceof QJsonLazy)) {
+            QJsonParallel.print(this, out, level, close_item, pool); // lazy node reads the tape on first access, so not by threads
+        } else {
+            print_items(out, 0, count, level, close_item);
         }
         out.write(close_item);
         out.write(close_char);
@@ -531,193 +821,312 @@ public class QJson {
         return(0);
     } // writeJSONString(Writer out)
 
-    private void print_item(Writer out, int index, int level)
+    // items[from..to) of writeJSONString(), separated by "," and close_item
+    void print_items(Writer out, int from, int to, int level, String close_item) throws IOException {
+        Object packed = packedItems();
+        for (int i = from; i < to; i++) {
+            if (packed != null) print_packed(out, packed, i);
+            else print_item(out, nameAt(i), itemAt(i), level);
+            if (i != (to - 1)) {
+                out.write(",");
+                out.write(close_item);
+            }
+        }
+    }
+
+    // QJsonLazy moves its items to QJson storage, before the parser adds items to it
+    void inflate() {
+    }
+
+    // item for writeJSONString(), index is valid
+    Object itemAt(int index) {
+        return (item(index));
+    }
+
+    // long[] or double[] with items of numeric array (may be longer than size()), null if items are not packed
+    Object packedItems() {
+        return (packed);
+    }
+
+    // print_item() of packed number, without boxing it
+    private void print_packed(Writer out, Object packed, int index) throws IOException {
+        if (getType() == QJSON_TYPE_OBJECT) {
+            write_jstr(out, null);
+            out.write(" : ");
+        }
+        if (packed instanceof long[]) write_jlong(out, ((long[]) packed)[index]);
+        else write_jlit(out, Double.toString(((double[]) packed)[index]));
+    }
+
+    String nameAt(int index) {
+        return (names == null ? null : names[index]);
+    }
+
+    private void print_item(Writer out, String name, Object item, int level)
             throws IOException {
-        if (type == QJSON_TYPE_OBJECT) {
-            write_jstr(out, (String) names.get(index));
+        if (getType() == QJSON_TYPE_OBJECT) {
+            write_jstr(out, name);
             out.write(" : ");
         }
-        Object item = items.get(index);
         if (item == null) {
             out.write("null");
             return;
         }
-        // next operations sorted on probability of occurance
-        try {
-            String str = (String) item;
-            write_jstr(out, str);
-            return;
-        } catch (Exception e) {
-        }
-        try {
-            Long num = (Long) item;
-            write_jlit(out, num.toString());
-            return;
-        } catch (Exception e) {
-        }
-        try {
-            Double num = (Double) item;
-            write_jlit(out, num.toString());
-            return;
-        } catch (Exception e) {
-        }
-        QJson json = null;
-        try {
-            json = (QJson) item;
-        } catch (Exception e) {
-        }
-        if (json != null) {
-            json.writeJSONString(out, (level == 0) ? 0 : level + 1);
-            return;
-        }
-        try {
-            Boolean bool = (Boolean) item;
-            write_jlit(out, bool.toString());
-            return;
-        } catch (Exception e) {
-        }
-        try {
-            Integer num = (Integer) item;
-            write_jlit(out, num.toString());
-            return;
-        } catch (Exception e) {
-        }
-        try {
-            Short num = (Short) item;
-            write_jlit(out, num.toString());
-            return;
-        } catch (Exception e) {
+        // next operations sorted on probability of occurance (instanceof, a failed cast throws
+        // an exception for every item of other types)
+        if (item instanceof String) {
+            write_jstr(out, (String) item);
+        } else if (item instanceof Long) {
+            write_jlong(out, ((Long) item).longValue());
+        } else if (item instanceof Double) {
+            write_jlit(out, item.toString());
+        } else if (item instanceof QJson) {
+            ((QJson) item).writeJSONString(out, (level == 0) ? 0 : level + 1);
+        } else if (item instanceof Boolean || item instanceof Integer || item instanceof Short || item instanceof Byte) {
+            write_jlit(out, item.toString());
+        } else {
+            write_jstr(out, item.toString()); // BigDecimal and any other data types converted to string
         }
-        try {
-            Byte num = (Byte) item;
-            write_jlit(out, num.toString());
-            return;
-        } catch (Exception e) {
-        }
-        try {
-            java.math.BigDecimal num = (java.math.BigDecimal) item;
-            write_jstr(out, num.toString());
-            return;
-        } catch (Exception e) {
-        }
-        write_jstr(out, item.toString()); // any other data types converted to string
     } // //print_item(out,i);
 
     public void parseJSONString(String json) throws IOException {
-        StringReader sr = new StringReader(json);
         //try{ parseJSONReader(sr); } catch(IOException ioe)  {addItem("exception",ioe.toString());}
-        parseJSONReader(sr);
+        parseDocument(new QJsonReader(json));
     } // parseJSONString
 
+    /**
+     * parse UTF-8 encoded json from json[off..off+len)
+     */
+    public void parseJSONBytes(byte[] json, int off, int len) throws IOException {
+        parseDocument(new QJsonReader(json, off, len));
+    }
+
+    /**
+     * parse UTF-8 encoded json from stream, the stream is read in blocks past the end of json
+     */
+    public void parseJSONStream(InputStream json) throws IOException {
+        parseDocument(new QJsonReader(new QJsonByteTokenizer(json), null));
+    }
+
+    /**
+     * parse UTF-8 encoded json from position to limit of buffer (heap or direct, not copied),
+     * buffer position is not changed
+     */
+    public void parseJSONBuffer(ByteBuffer json) throws IOException {
+        parseDocument(new QJsonReader(json));
+    }
+
+    /**
+     * parse UTF-8 encoded json file of any size, the file is memory mapped window by window
+     * so the heap holds only the resulting tree
+     */
+    public void parseFile(Path file) throws IOException {
+        try (QJsonReader reader = new QJsonReader(file)) {
+            parseDocument(reader);
+        }
+    }
+
+    /**
+     * streaming variant of parseFile() for files with top-level array: every array item
+     * (QJson, String, Long, Double, Boolean or null) is passed to consumer as soon as it is parsed
+     * and is not kept, so the heap holds one item at a time
+     */
+    public static void parseFileItems(Path file, Consumer<Object> consumer) throws IOException {
+        try (QJsonReader reader = withSymbols(new QJsonReader(file))) {
+            if (reader.nextToken() != QJsonReader.TOKEN_START_ARRAY) throw (parseException(CONTEXT_GLOBAL, '{'));
+            int token;
+            while ((token = reader.nextToken()) != QJsonReader.TOKEN_END_ARRAY) {
+                consumer.accept(readValue(reader, token));
+            }
+        }
+    }
+
+    /**
+     * lazy parse of UTF-8 encoded json[off..off+len): only a structural index of the document is
+     * built and items are created on first access, so reading a few values of a big document
+     * is fast and takes little heap. The array is not copied and must not be changed while
+     * the tree is in use. Syntax errors are reported at once, like parseJSONBytes() does them.
+     * Unlike parsing into existing QJson, the type of the root follows the document.
+     */
+    public static QJson parseJSONLazy(byte[] json, int off, int len) throws IOException {
+        return (QJsonLazy.root(QJsonTape.build(json, off, len)));
+    }
+
+    /**
+     * parse of UTF-8 encoded json[off..off+len) with big top-level array by threads of pool: a quick
+     * scan cuts the array into slices of whole items, slices are parsed in parallel and joined into
+     * one QJSON_TYPE_ARRAY node, the same tree as parseJSONBytes() makes. Documents smaller than
+     * PARALLEL_THRESHOLD or other than array, pool of one thread and json with errors (to throw
+     * the same exception) are parsed by the calling thread. Like parseJSONLazy(), the type of the
+     * root follows the document.
+     */
+    public static QJson parseJSONParallel(byte[] json, int off, int len, ForkJoinPool pool) throws IOException {
+        return (QJsonParallel.parse(json, off, len, pool));
+    }
+
+    public static QJson parseJSONParallel(byte[] json, int off, int len) throws IOException {
+        return (parseJSONParallel(json, off, len, ForkJoinPool.commonPool()));
+    }
+
+    public static QJson parseJSONParallel(String json, ForkJoinPool pool) throws IOException {
+        return (QJsonParallel.parse(json, pool));
+    }
+
+    public static QJson parseJSONParallel(String json) throws IOException {
+        return (parseJSONParallel(json, ForkJoinPool.commonPool()));
+    }
+
+    public static QJson parseJSONLazy(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return (parseJSONLazy(bytes, 0, bytes.length));
+    }
+
+    /**
+     * lazy parse of UTF-8 encoded json file (up to 2GB), which is read into heap as is
+     */
+    public static QJson parseFileLazy(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        return (parseJSONLazy(bytes, 0, bytes.length));
+    }
+
     public int parseJSONReader(Reader json) throws IOException {
         return parseJSONReader(json, CONTEXT_GLOBAL);
     }
 
-    //public int parseJSONReader(Reader json, int context) throws IOException {return(1);}
+    /**
+     * json is read up to the returned character and not beyond it, so the rest of the stream may
+     * be read after it: a Reader which supports mark() (BufferedReader, StringReader) is read in
+     * windows, any other one character at a time. For streams of many documents
+     * {@link QJsonLines} or one {@link QJsonReader} over the stream are faster.
+     *
+     * @param context CONTEXT_GLOBAL for whole json, CONTEXT_OBJECT or CONTEXT_ARRAY if opening bracket already read
+     * @return next character after parsed json or -1
+     */
     public int parseJSONReader(Reader json, int context) throws IOException {
-        int c = 0;
-        //dodebug("parseJSONReader:" + CONTEXT_NAMES[context]);
-        while (c != -1) {
-            StringBuffer sb = new StringBuffer();
-            String name = null;
-            Object value = null;
-            switch (context) {
-                case CONTEXT_GLOBAL:
-                    c = skipSpaceAny(json);
-                    if (c == '{') c = parseJSONReader(json, CONTEXT_OBJECT);
-                    else if (c == '[') c = parseJSONReader(json, CONTEXT_ARRAY);
-                    else throw (parseException(context, c));
-                    return (c);
-                case CONTEXT_OBJECT:
-                    if (c == '}') {
-                        c = json.read();
-                        return (c);
-                    }
-                    c = skipSpaceAny(json);
-                    if (c == '}') {
-                        c = json.read();
-                        return (c);
-                    }
-                    if (c == '"') c = parseJSONReader(json, CONTEXT_NAME);
-                    else throw (parseException(context, c));
-                    //dodebug("CONTEXT_OBJECT after NAME : " + c);
-                    if (isCharSpaceAny(c) || c == '"') c = skipSpaceAny(json);
-                    if (c == ',') break; // go to next item
-                    //dodebug("CONTEXT_OBJECT after NAME2 : " + c);
-                    break;
-                case CONTEXT_ARRAY:
-                    c = parseJSONReader(json, CONTEXT_ARRAY_VALUE);
-                    if (isCharSpaceAny(c) || c == '"') c = skipSpaceAny(json);
-                    if (c == ',') break; // go to next item
-                    if (c == ']') {
-                        c = json.read();
-                        return (c);
-                    }
-                    throw (parseException(context, c));
-                case CONTEXT_NAME:
-                    c = readJString(json, sb);
-                    if (isCharInClass(c, SZ_CLASS_CRLF)) throw (parseException(context, c));
-                    if (c == '"') {
-                        name = sb.toString();
-                        sb = new StringBuffer();
-                    }
-                    //dodebug("NAME : " + name +" len: " +name.length());
-                    if (name.length() == 0) throw (parseException(context, c)); // empty name
-                    // break; // next is CONTEXT_NAME_AFTER
-                case CONTEXT_NAME_AFTER:
-                    c = skipSpaceAny(json);
-                    if (c != ':') throw (parseException(CONTEXT_NAME_AFTER, c));
-                case CONTEXT_VALUE:
-                case CONTEXT_ARRAY_VALUE:
-                    c = skipSpaceAny(json);
-                    if (context == CONTEXT_ARRAY_VALUE && c == ']') return (c);
-                    if (c == '\"') {
-                        c = readJString(json, sb);
-                        value = sb.toString();
-                        addItem(name, value);
-                    } // value is string
-                    else if (c == '{' || c == '[') //value is object or array
-                    {
-                        QJson v = new QJson();
-                        addItem(name, v); // required to view really parsed items while debugging
-                        if (c == '{') {
-                            v.setType(QJSON_TYPE_OBJECT);
-                            c = v.parseJSONReader(json, CONTEXT_OBJECT);
-                        } else {
-                            v.setType(QJSON_TYPE_ARRAY);
-                            c = v.parseJSONReader(json, CONTEXT_ARRAY);
-                        }
-                        //dodebug("CONTEXT_VALUE_QJSON:" + (char)c + " " +c );
-                    } else { // value is literal (true,false, null, number)
-                        if (!isCharInClass(c, SZ_CLASS_LITERAL)) throw (parseException(CONTEXT_VALUE_LITERAL, c));
-                        sb.append((char) c); // save char, it is part of value!
-                        c = readJLiteral(json, sb);
-                        if (sb.length() == 0) throw (parseException(CONTEXT_VALUE, c));
-                        addItem(name, literal2value(sb.toString()));
+        QJsonCharTokenizer chars = QJsonCharTokenizer.exact(json);
+        try {
+            QJsonReader reader = withSymbols(new QJsonReader(chars, json));
+            inflate();
+            if (context == CONTEXT_GLOBAL) parseDocument(reader);
+            else if (context == CONTEXT_OBJECT || context == CONTEXT_ARRAY) readItems(reader.enter(context == CONTEXT_OBJECT), null, false);
+            else not_implemented();
+            return (chars.read());
+        } finally {
+            chars.release();
+        }
+    }
+
+    /**
+     * parse one top-level object or array from reader into this QJson; reader without
+     * symbols gets the shared ones, if they are set (see setSymbols())
+     */
+    public void parseDocument(QJsonReader reader) throws IOException {
+        withSymbols(reader);
+        inflate();
+        reader.nextToken(); // TOKEN_START_OBJECT or TOKEN_START_ARRAY, reader throws exception on anything else
+        readItems(reader, null, false);
+    } // parseDocument()
+
+    // read items of container which start token was just read, up to its end token. expected is
+    // shape of the object parsed before this one in the same array or object (or null), names
+    // equal to its names are taken from it and not created again; other names are added as the
+    // reader returns them (from the shared symbols, if they are set). nested objects share names
+    // with other objects of the parse, the root has none to share them with
+    private void readItems(QJsonReader reader, QJsonShape expected, boolean nested) throws IOException {
+        boolean empty = count == 0;
+        // names of items so far are follow.names[0..count), names[] is not made while they match
+        QJsonShape follow = empty && names == null && type == QJSON_TYPE_OBJECT ? expected : null;
+        QJsonShape last = null; // shape of the last object item, expected of the next one
+        int hash = 0; // of names, see QJsonShape.key()
+        while (true) {
+            int token = reader.nextToken();
+            String name = null; // stays null while the name is in follow
+            boolean named = token == QJsonReader.TOKEN_NAME;
+            if (named) {
+                hash = 31 * hash + QJsonShape.key(reader.getText());
+                if (follow == null || count >= follow.names.length || !reader.nameEquals(follow.names[count])) {
+                    if (follow != null) unfollow(follow);
+                    follow = null;
+                    name = reader.getString();
+                }
+                token = reader.nextToken();
+            }
+            if (token == QJsonReader.TOKEN_START_OBJECT || token == QJsonReader.TOKEN_START_ARRAY) {
+                QJson v = new QJson(token == QJsonReader.TOKEN_START_OBJECT ? QJSON_TYPE_OBJECT : QJSON_TYPE_ARRAY);
+                add(name, v); // required to view really parsed items while debugging
+                v.readItems(reader, last, true);
+                if (v.name_index instanceof QJsonShape) last = (QJsonShape) v.name_index;
+            } else if (token == QJsonReader.TOKEN_END_OBJECT || token == QJsonReader.TOKEN_END_ARRAY) {
+                if (follow != null && count == follow.names.length) {
+                    names = follow.names; // same names as the previous object
+                    name_index = follow;
+                } else if (empty && nested) {
+                    if (follow != null && count > 0) names = Arrays.copyOf(follow.names, count);
+                    share(reader, hash);
+                }
+                trim();
+                return;
+            } else if (token == QJsonReader.TOKEN_NUMBER && !named) {
+                addNumber(reader);
+            } else {
+                add(name, reader.getValue());
+            }
+        }
+    }
+
+    // items of slice of big array read by reader (see QJsonParallel) as new array node
+    static QJson parseItems(QJsonReader reader) throws IOException {
+        QJson part = new QJson(QJSON_TYPE_ARRAY);
+        part.readItems(withSymbols(reader).enterItems(), null, false);
+        return (part);
+    }
+
+    // array node with items of parts (slices of one array) in order, packed as the parser would pack them
+    static QJson join(QJson[] parts) {
+        int total = 0;
+        boolean longs = true;
+        boolean doubles = true;
+        for (QJson part : parts) {
+            total += part.count;
+            longs &= part.packed instanceof long[];
+            doubles &= part.packed instanceof double[];
+        }
+        QJson array = new QJson(QJSON_TYPE_ARRAY);
+        if (total == 0) return (array);
+        int n = 0;
+        if (longs || doubles) {
+            Object packed = longs ? new long[total] : new double[total];
+            for (QJson part : parts) {
+                System.arraycopy(part.packed, 0, packed, n, part.count);
+                n += part.count;
+            }
+            array.packed = packed;
+        } else {
+            Object[] items = new Object[total];
+            for (QJson part : parts) {
+                if (part.packed == null) {
+                    System.arraycopy(part.items, 0, items, n, part.count);
+                } else {
+                    for (int i = 0; i < part.count; i++) {
+                        items[n + i] = part.item(i); // boxed, as the parser unpacks mixed array
                     }
-                    break;
-            } //switch
-            //dodebug("Finish switch on:" + CONTEXT_NAMES[context]);
-            if (context == CONTEXT_VALUE) return (c);
-            if (context == CONTEXT_ARRAY_VALUE) return (c);
-            if (context == CONTEXT_NAME) return (c);
-            //dodebug("Continue switch on:" + CONTEXT_NAMES[context] + " with c=" + c);
-            //c = json.read();
-        } // while( c != -1 )
-        return(c);
-    } // parseJSONReader()
-
-    // return next string token from stream
-// word, spaces, string, crlf, {, [, },], \
-    private int skipSpaceAny(Reader json)
-            throws IOException {
-        int c = json.read();
-        //dodebug("skipSpaceAny:enter" );
-        while (isCharSpaceAny(c)) {
-            c = json.read();
+                }
+                n += part.count;
+            }
+            array.items = items;
         }
-        //dodebug("skipSpaceAny:exit" );
-        return (c);
+        array.count = total;
+        return (array);
+    }
+
+    // value which token was just read from reader: QJson for object or array, literal value for others
+    static Object readValue(QJsonReader reader, int token) throws IOException {
+        if (token == QJsonReader.TOKEN_START_OBJECT || token == QJsonReader.TOKEN_START_ARRAY) {
+            QJson v = new QJson(token == QJsonReader.TOKEN_START_OBJECT ? QJSON_TYPE_OBJECT : QJSON_TYPE_ARRAY);
+            v.readItems(reader, null, true);
+            return (v);
+        }
+        return (reader.getValue());
     }
 
     public int getType() {
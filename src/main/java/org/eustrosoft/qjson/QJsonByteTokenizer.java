@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link QJsonTokenizer} over UTF-8 bytes: a ByteBuffer (heap or direct, read with absolute gets,
+ * never copied) or an InputStream read through a byte[] window.
+ * <p>
+ * Structural characters, spaces and literals are ASCII and are never decoded; only string
+ * contents go through UTF-8 decoding, with an ASCII fast path that checks 8 bytes per step
+ * (one getLong, no copy) for runs of plain characters.
+ * Malformed sequences are decoded as U+FFFD, like InputStreamReader does.
+ * <p>
+ * A tokenizer made by {@link #QJsonByteTokenizer()} is {@link #reset(byte[], int, int)} for each
+ * input and keeps its windows, see {@link QJsonContext}.
+ */
+class QJsonByteTokenizer extends QJsonTokenizer {
+    static final int WINDOW_SIZE = 8192;
+    private static final int REPLACEMENT = 0xFFFD;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long QUOTES = 0x2222222222222222L; // '"' in every byte
+    private static final long BACKSLASHES = 0x5C5C5C5C5C5C5C5CL; // '\\' in every byte
+
+    private InputStream in;
+    private byte[] in_buf;
+    // current window, subclasses may replace it in fill()
+    ByteBuffer buf;
+    int pos;
+    int limit;
+    private final char[] run = new char[256]; // decoded ASCII run of string
+
+    QJsonByteTokenizer(ByteBuffer buf) {
+        reset(buf);
+    }
+
+    QJsonByteTokenizer(InputStream in) {
+        reset(in);
+    }
+
+    // reusable tokenizer, without input until reset()
+    QJsonByteTokenizer() {
+        reset(new byte[0], 0, 0);
+    }
+
+    QJsonByteTokenizer reset(ByteBuffer buf) {
+        this.in = null;
+        this.buf = buf.duplicate().order(ByteOrder.BIG_ENDIAN); // getLong() below expects big endian
+        this.pos = buf.position();
+        this.limit = buf.limit();
+        return (this);
+    }
+
+    /**
+     * json[off..off+len), the array is wrapped once for all inputs from it
+     */
+    QJsonByteTokenizer reset(byte[] json, int off, int len) {
+        if (off < 0 || len < 0 || off + len > json.length) throw (new IndexOutOfBoundsException());
+        this.in = null;
+        if (!wraps(json)) buf = ByteBuffer.wrap(json); // big endian
+        this.pos = off;
+        this.limit = off + len;
+        return (this);
+    }
+
+    QJsonByteTokenizer reset(InputStream in) {
+        if (in_buf == null) in_buf = new byte[WINDOW_SIZE];
+        this.in = in;
+        if (!wraps(in_buf)) buf = ByteBuffer.wrap(in_buf);
+        this.pos = 0;
+        this.limit = 0;
+        return (this);
+    }
+
+    // buf is ByteBuffer.wrap(array) already
+    private boolean wraps(byte[] array) {
+        ByteBuffer b = buf;
+        return (b != null && b.hasArray() && b.array() == array && b.arrayOffset() == 0 && b.limit() == array.length
+                && b.order() == ByteOrder.BIG_ENDIAN);
+    }
+
+    // refill window (buf, pos, limit), false at the end of input
+    boolean fill() throws IOException {
+        if (in == null) return (false);
+        int n = in.read(in_buf, 0, in_buf.length);
+        pos = 0;
+        limit = n > 0 ? n : 0;
+        return (limit > 0);
+    }
+
+    private int peekByte() throws IOException {
+        if (pos == limit && !fill()) return (-1);
+        return (buf.get(pos) & 0xFF);
+    }
+
+    int read() throws IOException {
+        if (pos == limit && !fill()) return (-1);
+        int b = buf.get(pos++) & 0xFF;
+        return (b < 0x80 ? b : toChar(decode(b)));
+    }
+
+    int skipSpaceAny() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            int b = buf.get(pos++) & 0xFF;
+            if (b >= 0x80) return (toChar(decode(b)));
+            if ((CHAR_CLASS[b] & CC_SPACE) == 0) return (b);
+        }
+    }
+
+    int readString(StringBuilder sb) throws IOException {
+        char[] chars = run;
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            ByteBuffer b = buf;
+            int p = pos;
+            int end = Math.min(limit, p + chars.length);
+            int n = 0;
+            while (p + 8 <= end) {
+                long x = b.getLong(p);
+                long q = x ^ QUOTES;
+                long e = x ^ BACKSLASHES;
+                // any byte non-ASCII, '"' or '\\' (zero byte test on q and e)
+                if (((((q - ONES) & ~q) | ((e - ONES) & ~e) | x) & HIGHS) != 0) break;
+                chars[n] = (char) (x >>> 56);
+                chars[n + 1] = (char) ((x >>> 48) & 0xFF);
+                chars[n + 2] = (char) ((x >>> 40) & 0xFF);
+                chars[n + 3] = (char) ((x >>> 32) & 0xFF);
+                chars[n + 4] = (char) ((x >>> 24) & 0xFF);
+                chars[n + 5] = (char) ((x >>> 16) & 0xFF);
+                chars[n + 6] = (char) ((x >>> 8) & 0xFF);
+                chars[n + 7] = (char) (x & 0xFF);
+                n += 8;
+                p += 8;
+            }
+            while (p < end) {
+                int c = b.get(p);
+                if (c < 0 || (CHAR_CLASS[c] & CC_STRING_STOP) != 0) break;
+                chars[n++] = (char) c;
+                p++;
+            }
+            if (n > 0) sb.append(chars, 0, n);
+            pos = p;
+            if (p == end) continue;
+            int c = b.get(pos++) & 0xFF;
+            if (c == '"') return ('"');
+            if (c == '\\') {
+                int e = read();
+                if (e == -1) throw (QJson.parseException(QJson.CONTEXT_VALUE_STRING, e));
+                sb.append((char) unescape(e));
+            } else {
+                sb.appendCodePoint(decode(c));
+            }
+        }
+    }
+
+    int skipString() throws IOException {
+        int n = 0;
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            ByteBuffer b = buf;
+            int end = limit;
+            int p = pos;
+            while (p + 8 <= end) {
+                long x = b.getLong(p);
+                long q = x ^ QUOTES;
+                long e = x ^ BACKSLASHES;
+                if (((((q - ONES) & ~q) | ((e - ONES) & ~e)) & HIGHS) != 0) break; // '"' or '\\', UTF-8 is not decoded
+                p += 8;
+            }
+            while (p < end && b.get(p) != '"' && b.get(p) != '\\') {
+                p++;
+            }
+            n += p - pos;
+            pos = p;
+            if (p == end) continue;
+            pos++;
+            if (b.get(p) == '"') return (n);
+            int c = read(); // escape
+            if (c == -1) throw (QJson.parseException(QJson.CONTEXT_VALUE_STRING, c));
+            unescape(c);
+            n += 2;
+        }
+    }
+
+    int readLiteral(StringBuilder sb) throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            int b = buf.get(pos++) & 0xFF;
+            if (b >= 0x80) throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, toChar(decode(b))));
+            int cc = CHAR_CLASS[b];
+            if ((cc & CC_LITERAL_STOP) != 0) return (b);
+            if ((cc & CC_LITERAL) == 0) throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, b));
+            sb.append((char) b);
+        }
+    }
+
+    // code point of the sequence started by lead byte b0 (already consumed)
+    private int decode(int b0) throws IOException {
+        int n;
+        int cp;
+        int min;
+        if (b0 >= 0xC2 && b0 <= 0xDF) {
+            n = 1;
+            cp = b0 & 0x1F;
+            min = 0x80;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            n = 2;
+            cp = b0 & 0x0F;
+            min = 0x800;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            n = 3;
+            cp = b0 & 0x07;
+            min = 0x10000;
+        } else {
+            return (REPLACEMENT);
+        }
+        for (int i = 0; i < n; i++) {
+            int b = peekByte();
+            if ((b & 0xC0) != 0x80) return (REPLACEMENT); // leave it for the next read
+            pos++;
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            return (REPLACEMENT);
+        }
+        return (cp);
+    }
+
+    // outside of strings only one char is returned, good enough for error messages
+    private static int toChar(int cp) {
+        return (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT ? cp : Character.highSurrogate(cp));
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link QJsonTokenizer} over a Reader or a String, read through a char[] window.
+ * <p>
+ * Note: the window reads ahead, so the Reader is consumed beyond the end of the parsed document;
+ * a tokenizer made by {@link #exact(Reader)} gives back what it has not used, see {@link #release()}.
+ * <p>
+ * A tokenizer made by {@link #QJsonCharTokenizer()} has the full window and is {@link #reset(String)}
+ * for each input, see {@link QJsonContext}.
+ */
+final class QJsonCharTokenizer extends QJsonTokenizer {
+    static final int WINDOW_SIZE = 8192;
+
+    private Reader reader; // one of reader or string is the source
+    private String string;
+    private int string_pos;
+    private int string_end;
+    private final char[] buf;
+    private int pos;
+    private int limit;
+    private boolean marked; // reader is marked at the start of each window, see exact()
+
+    QJsonCharTokenizer(Reader reader) {
+        this.reader = reader;
+        this.buf = new char[WINDOW_SIZE];
+    }
+
+    private QJsonCharTokenizer(Reader reader, int window, boolean marked) {
+        this.reader = reader;
+        this.buf = new char[window];
+        this.marked = marked;
+    }
+
+    /**
+     * tokenizer which leaves reader just after the last character it returned, once released
+     * (see {@link QJson#parseJSONReader(Reader)}): reader which supports mark() is read in full
+     * windows and reset() to that character, any other one is read one character at a time
+     */
+    static QJsonCharTokenizer exact(Reader reader) {
+        boolean marked = reader.markSupported();
+        return (new QJsonCharTokenizer(reader, marked ? WINDOW_SIZE : 1, marked));
+    }
+
+    /**
+     * give the characters of the window which were not returned back to the reader of
+     * {@link #exact(Reader)}
+     */
+    void release() throws IOException {
+        if (!marked) return;
+        marked = false;
+        reader.reset();
+        for (long n = pos; n > 0; ) {
+            long skipped = reader.skip(n);
+            if (skipped <= 0) break;
+            n -= skipped;
+        }
+        pos = 0;
+        limit = 0;
+    }
+
+    QJsonCharTokenizer(String string) {
+        this(string, 0, string.length());
+    }
+
+    // string[from..to)
+    QJsonCharTokenizer(String string, int from, int to) {
+        this.buf = new char[Math.min(WINDOW_SIZE, Math.max(to - from, 16))];
+        reset(null, string);
+        string_pos = from;
+        string_end = to;
+    }
+
+    // reusable tokenizer, without input until reset()
+    QJsonCharTokenizer() {
+        this.buf = new char[WINDOW_SIZE];
+    }
+
+    QJsonCharTokenizer reset(Reader reader) {
+        return (reset(reader, null));
+    }
+
+    QJsonCharTokenizer reset(String string) {
+        return (reset(null, string));
+    }
+
+    private QJsonCharTokenizer reset(Reader reader, String string) {
+        this.reader = reader;
+        this.string = string;
+        string_pos = 0;
+        string_end = string == null ? 0 : string.length();
+        pos = 0;
+        limit = 0;
+        return (this);
+    }
+
+    // refill window, false at the end of input
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        if (reader != null) {
+            if (marked) reader.mark(buf.length);
+            int n = reader.read(buf, 0, buf.length);
+            if (n > 0) limit = n;
+        } else {
+            int n = Math.min(buf.length, string_end - string_pos);
+            string.getChars(string_pos, string_pos + n, buf, 0);
+            string_pos += n;
+            limit = n;
+        }
+        return (limit > 0);
+    }
+
+    int read() throws IOException {
+        if (pos == limit && !fill()) return (-1);
+        return (buf[pos++]);
+    }
+
+    int skipSpaceAny() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            char c = buf[pos++];
+            if (c >= 128 || (CHAR_CLASS[c] & CC_SPACE) == 0) return (c);
+        }
+    }
+
+    int readString(StringBuilder sb) throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            int start = pos;
+            char[] b = buf;
+            int end = limit;
+            int p = start;
+            while (p < end) {
+                char c = b[p];
+                if (c < 128 && (CHAR_CLASS[c] & CC_STRING_STOP) != 0) break;
+                p++;
+            }
+            if (p > start) sb.append(b, start, p - start); // escape-free run in one step
+            pos = p;
+            if (p == end) continue;
+            pos++;
+            if (b[p] == '"') return ('"');
+            int c = read(); // escape
+            if (c == -1) throw (QJson.parseException(QJson.CONTEXT_VALUE_STRING, c));
+            sb.append((char) unescape(c));
+        }
+    }
+
+    int skipString() throws IOException {
+        int n = 0;
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            char[] b = buf;
+            int end = limit;
+            int p = pos;
+            while (p < end && b[p] != '"' && b[p] != '\\') {
+                p++;
+            }
+            n += p - pos;
+            pos = p;
+            if (p == end) continue;
+            pos++;
+            if (b[p] == '"') return (n);
+            int c = read(); // escape
+            if (c == -1) throw (QJson.parseException(QJson.CONTEXT_VALUE_STRING, c));
+            unescape(c);
+            n += 2;
+        }
+    }
+
+    int readLiteral(StringBuilder sb) throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return (-1);
+            char c = buf[pos++];
+            int cc = c < 128 ? CHAR_CLASS[c] : 0;
+            if ((cc & CC_LITERAL_STOP) != 0) return (c);
+            if ((cc & CC_LITERAL) == 0) throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, c));
+            sb.append(c);
+        }
+    }
+}
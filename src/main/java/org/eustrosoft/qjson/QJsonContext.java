@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Reusable scratch of parsing and printing: one reader with its char and byte windows, token
+ * buffer, container stack and number scratch, shapes of parsed objects (and a table of object names,
+ * if it is set) and an output buffer. A new QJsonReader, QJson.parseJSONString() or toJSONString() makes all of
+ * them again for each document; a context makes them once, so parsing allocates only the resulting
+ * tree (or nothing at all, when the reader is read token by token) and printing allocates only
+ * the resulting String.
+ * <pre>
+ * QJsonContext ctx = QJsonContext.get(); // of this thread, or one taken from a pool
+ * QJson request = ctx.parse(body);
+ * String response = ctx.toJSONString(result);
+ * </pre>
+ * A context is used by one thread at a time. {@link #get()} keeps one per thread, a pool of
+ * contexts calls {@link #reset()} when a context is returned to it. The reader and the String
+ * input given to parse() are valid until the next call of the context.
+ */
+public final class QJsonContext {
+    /**
+     * token and output buffers grown over this (chars) by a big document are dropped by reset()
+     */
+    public static final int MAX_SCRATCH = 1 << 16;
+
+    private static final ThreadLocal<QJsonContext> PER_THREAD = new ThreadLocal<QJsonContext>() {
+        protected QJsonContext initialValue() {
+            return (new QJsonContext());
+        }
+    };
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final QJsonCharTokenizer chars = new QJsonCharTokenizer();
+    private QJsonByteTokenizer bytes; // on first byte input
+    private QJsonReader reader;
+    private QJsonSymbols symbols;
+    private final Output out = new Output();
+    private final JsonParser parser = new JsonParser();
+
+    public QJsonContext() {
+        reader = newReader();
+    }
+
+    /**
+     * @return context of the current thread
+     */
+    public static QJsonContext get() {
+        return (PER_THREAD.get());
+    }
+
+    private QJsonReader newReader() {
+        QJsonReader r = new QJsonReader(chars, null);
+        r.setSymbols(symbols);
+        return (r);
+    }
+
+    private QJsonByteTokenizer bytes() {
+        if (bytes == null) bytes = new QJsonByteTokenizer();
+        return (bytes);
+    }
+
+    /**
+     * @return the reader of this context over json, same as new QJsonReader(json)
+     */
+    public QJsonReader reader(String json) {
+        trim();
+        return (reader.reset(chars.reset(json), null));
+    }
+
+    public QJsonReader reader(Reader json) {
+        trim();
+        return (reader.reset(chars.reset(json), json));
+    }
+
+    /**
+     * UTF-8 encoded json[off..off+len), the array is not copied
+     */
+    public QJsonReader reader(byte[] json, int off, int len) {
+        trim();
+        return (reader.reset(bytes().reset(json, off, len), null));
+    }
+
+    /**
+     * UTF-8 encoded json, from position to limit of buffer (not copied, position not changed)
+     */
+    public QJsonReader reader(ByteBuffer json) {
+        trim();
+        return (reader.reset(bytes().reset(json), null));
+    }
+
+    /**
+     * UTF-8 encoded json, the stream is read in blocks past the end of json
+     */
+    public QJsonReader reader(InputStream json) {
+        trim();
+        return (reader.reset(bytes().reset(json), json));
+    }
+
+    /**
+     * @return new QJson parsed from json, as QJson.parseJSONString() does
+     */
+    public QJson parse(String json) throws IOException {
+        return (parse(reader(json)));
+    }
+
+    public QJson parse(byte[] json, int off, int len) throws IOException {
+        return (parse(reader(json, off, len)));
+    }
+
+    public QJson parse(InputStream json) throws IOException {
+        return (parse(reader(json)));
+    }
+
+    private static QJson parse(QJsonReader reader) throws IOException {
+        QJson q = new QJson();
+        q.parseDocument(reader);
+        return (q);
+    }
+
+    /**
+     * bind json to new instance of type, as JsonParser.parseJson(Class, String) does
+     */
+    public <T> T parseJson(Class<T> type, String json) throws IllegalAccessException, IOException, InstantiationException {
+        return (parser.parseJson(type, reader(json)));
+    }
+
+    /**
+     * @return json of QJson, same text as json.toJSONString()
+     */
+    public String toJSONString(QJson json) {
+        return (toJSONString(json, 1));
+    }
+
+    public String toJSONString(QJson json, int level) {
+        StringBuilder sb = out.begin();
+        try {
+            json.writeJSONString(out, level);
+        } catch (IOException ioe) {
+            sb.append(ioe.toString());
+        }
+        return (sb.toString());
+    }
+
+    /**
+     * @return json of object, same text as JsonParser.parseObject() returns
+     */
+    public String parseObject(Object object) throws IOException {
+        StringBuilder sb = out.begin();
+        parser.writeObject(object, sb);
+        return (sb.toString());
+    }
+
+    public String parseCollection(Collection<?> collection) throws IOException {
+        StringBuilder sb = out.begin();
+        parser.writeCollection(collection, sb);
+        return (sb.toString());
+    }
+
+    /**
+     * names of objects parsed with this context (see QJsonReader.setSymbols()), so names seen before
+     * allocate nothing; null (the default) creates every name, or takes it from QJson.setSymbols()
+     * for QJson parses
+     */
+    public void setSymbols(QJsonSymbols symbols) {
+        this.symbols = symbols;
+        reader.setSymbols(symbols);
+    }
+
+    public QJsonSymbols getSymbols() {
+        return (symbols);
+    }
+
+    /**
+     * drop references to the last input and output and buffers grown over MAX_SCRATCH,
+     * for a context which goes back to a pool; names and shapes are kept (both tables are bounded)
+     */
+    public void reset() {
+        reader.reset(chars.reset((String) null), null);
+        if (bytes != null) bytes.reset(NO_BYTES, 0, 0);
+        out.sb.setLength(0);
+        trim();
+    }
+
+    /**
+     * reset() and forget names and shapes of parsed objects too
+     */
+    public void clear() {
+        reset();
+        if (symbols != null) symbols.clear();
+        reader = newReader();
+    }
+
+    // buffers which a big document made big go, the next ones are allocated as the tokens need
+    private void trim() {
+        trim(chars.token);
+        if (bytes != null) trim(bytes.token);
+        trim(out.sb);
+    }
+
+    private static void trim(StringBuilder sb) {
+        if (sb.capacity() > MAX_SCRATCH) {
+            sb.setLength(0);
+            sb.trimToSize();
+        }
+    }
+
+    /**
+     * Writer over a StringBuilder (not synchronized, unlike StringWriter), QJson prints numbers
+     * to it without making Strings
+     */
+    static final class Output extends Writer {
+        final StringBuilder sb = new StringBuilder();
+
+        StringBuilder begin() {
+            trim(sb);
+            sb.setLength(0);
+            return (sb);
+        }
+
+        void writeLong(long value) {
+            sb.append(value);
+        }
+
+        public void write(int c) {
+            sb.append((char) c);
+        }
+
+        public void write(char[] cbuf, int off, int len) {
+            sb.append(cbuf, off, len);
+        }
+
+        public void write(String str) {
+            sb.append(str);
+        }
+
+        public void write(String str, int off, int len) {
+            sb.append(str, off, off + len);
+        }
+
+        public Writer append(CharSequence csq) {
+            sb.append(csq);
+            return (this);
+        }
+
+        public Writer append(CharSequence csq, int start, int end) {
+            sb.append(csq, start, end);
+            return (this);
+        }
+
+        public void flush() {
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link QJsonByteTokenizer} over chunks of input fed as they arrive, see {@link QJsonFeeder}.
+ * <p>
+ * Chunks are appended to one byte[] window. When a token needs bytes which were not fed yet
+ * (including the rest of a UTF-8 sequence cut by a chunk), {@link #fill()} throws
+ * {@link NeedInput} instead of waiting for them; the feeder moves back to the start of the token
+ * and reads it again after the next chunk. Bytes before the token are dropped on the next feed(),
+ * so the window holds only the unfinished token and the input not parsed yet.
+ */
+final class QJsonFeedTokenizer extends QJsonByteTokenizer {
+    static final NeedInput NEED_INPUT = new NeedInput();
+
+    private byte[] data = new byte[WINDOW_SIZE];
+    private boolean ended; // endOfInput() was called, fill() returns false as other tokenizers do
+    private boolean in_string; // the last token was cut inside of string
+    private int checked; // data[..checked) has no '"' which could end the cut string
+
+    QJsonFeedTokenizer() {
+        reset(data, 0, 0);
+    }
+
+    /**
+     * append chunk from its position to limit (the position is moved to the limit)
+     */
+    void feed(ByteBuffer chunk) {
+        int n = chunk.remaining();
+        if (pos > 0) { // drop bytes of finished tokens
+            System.arraycopy(data, pos, data, 0, limit - pos);
+            limit -= pos;
+            checked = Math.max(0, checked - pos);
+            pos = 0;
+        }
+        if (limit + n > data.length) data = Arrays.copyOf(data, Math.max(limit + n, data.length * 2));
+        chunk.get(data, limit, n);
+        reset(data, 0, limit + n);
+    }
+
+    void endOfInput() {
+        ended = true;
+        in_string = false;
+    }
+
+    boolean isEnded() {
+        return (ended);
+    }
+
+    /**
+     * @return false if the cut string cannot end in the bytes fed since the last try, so reading
+     * it again from its start is of no use (a long string fed in small chunks is read once, not
+     * once per chunk)
+     */
+    boolean ready() {
+        if (!in_string) return (true);
+        for (int i = checked; i < limit; i++) {
+            if (data[i] == '"') return (true);
+        }
+        checked = limit;
+        return (false);
+    }
+
+    /**
+     * move back to start of the cut token
+     */
+    void rewind(int start) {
+        pos = start;
+    }
+
+    int position() {
+        return (pos);
+    }
+
+    @Override
+    boolean fill() throws IOException {
+        if (ended) return (false);
+        throw (NEED_INPUT);
+    }
+
+    @Override
+    int readString(StringBuilder sb) throws IOException {
+        in_string = true;
+        checked = limit;
+        int ch = super.readString(sb);
+        in_string = false;
+        return (ch);
+    }
+
+    @Override
+    int skipString() throws IOException {
+        in_string = true;
+        checked = limit;
+        int n = super.skipString();
+        in_string = false;
+        return (n);
+    }
+
+    /**
+     * the end of input fed so far, thrown by fill(): not an error, the token is read again
+     * after the next chunk (one instance, without stack trace)
+     */
+    static final class NeedInput extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private NeedInput() {
+            super("more input needed");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return (this);
+        }
+    }
+}
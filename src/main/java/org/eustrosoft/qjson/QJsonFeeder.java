@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking parser of UTF-8 json which arrives in chunks (NIO channels, event loops): input is
+ * fed as it is read and parsed as far as it goes, nothing waits for the rest of it.
+ * <pre>
+ * QJsonFeeder feeder = new QJsonFeeder();
+ * // on every read of the channel
+ * feeder.feed(buffer);
+ * QJson request = feeder.parse(); // null until the document is complete
+ * // at the end of stream
+ * feeder.endOfInput();
+ * QJson request = feeder.parse(); // exception if the document is not complete
+ * </pre>
+ * parse() builds the same tree as QJson.parseJSONBytes() and {@link #nextToken()} returns the tokens of
+ * {@link QJsonReader} instead; one feeder does one of them. A token cut by the end of a chunk
+ * (a string, a number, a UTF-8 sequence) is read again when the next chunk comes, the tree and
+ * the container stack are kept between chunks, no thread is blocked and no recursion is left
+ * in progress. Memory used is the tree plus the unfinished token.
+ * <p>
+ * A feeder is used by one thread at a time and parses one document, bytes after it are ignored.
+ */
+public class QJsonFeeder {
+    /**
+     * nextToken() of the end of input fed so far
+     */
+    public static final int TOKEN_NEED_INPUT = -1;
+
+    private final QJsonFeedTokenizer json = new QJsonFeedTokenizer();
+    private final QJsonReader reader = new QJsonReader(json, null);
+    // tree of parse(): open nodes, hash of names (see QJsonShape.key()) of each one, name of the next item
+    private QJson root;
+    private QJson[] nodes = new QJson[32];
+    private int[] hashes = new int[32];
+    private int depth;
+    private String name;
+
+    public QJsonFeeder() {
+        reader.setSymbols(QJson.getSymbols());
+    }
+
+    /**
+     * add bytes of chunk from its position to limit (copied, the position is moved to the limit)
+     */
+    public QJsonFeeder feed(ByteBuffer chunk) throws IOException {
+        if (json.isEnded()) throw (new IOException("QJsonFeeder: input after endOfInput()"));
+        json.feed(chunk);
+        return (this);
+    }
+
+    public QJsonFeeder feed(byte[] chunk, int off, int len) throws IOException {
+        return (feed(ByteBuffer.wrap(chunk, off, len)));
+    }
+
+    /**
+     * no more input: the last token is complete at the end, and an unfinished document is an error
+     */
+    public QJsonFeeder endOfInput() {
+        json.endOfInput();
+        return (this);
+    }
+
+    /**
+     * @return next token as QJsonReader.nextToken() does, or TOKEN_NEED_INPUT if the next token is
+     * not fed completely yet (call again after feed() or endOfInput())
+     */
+    public int nextToken() throws IOException {
+        if (!json.ready()) return (TOKEN_NEED_INPUT);
+        int start = json.position();
+        reader.mark();
+        try {
+            return (reader.nextToken());
+        } catch (QJsonFeedTokenizer.NeedInput e) {
+            reader.rewind();
+            json.rewind(start);
+            return (TOKEN_NEED_INPUT);
+        }
+    }
+
+    /**
+     * add all tokens fed so far to the tree
+     *
+     * @return parsed document when its top-level object or array is closed, null while more input is needed
+     */
+    public QJson parse() throws IOException {
+        while (true) {
+            int token = nextToken();
+            switch (token) {
+                case TOKEN_NEED_INPUT:
+                    return (null);
+                case QJsonReader.TOKEN_END_DOCUMENT:
+                    return (root);
+                case QJsonReader.TOKEN_NAME:
+                    hashes[depth - 1] = 31 * hashes[depth - 1] + QJsonShape.key(reader.getText());
+                    name = reader.getString();
+                    continue;
+                case QJsonReader.TOKEN_START_OBJECT:
+                case QJsonReader.TOKEN_START_ARRAY:
+                    QJson node = new QJson(token == QJsonReader.TOKEN_START_OBJECT ? QJson.QJSON_TYPE_OBJECT : QJson.QJSON_TYPE_ARRAY);
+                    if (depth == 0) root = node;
+                    else nodes[depth - 1].add(name, node);
+                    push(node);
+                    break;
+                case QJsonReader.TOKEN_END_OBJECT:
+                case QJsonReader.TOKEN_END_ARRAY:
+                    depth--;
+                    nodes[depth].endItems(reader, hashes[depth], depth > 0);
+                    nodes[depth] = null;
+                    break;
+                case QJsonReader.TOKEN_NUMBER:
+                    if (name == null) nodes[depth - 1].addNumber(reader);
+                    else nodes[depth - 1].add(name, reader.getValue());
+                    break;
+                default:
+                    nodes[depth - 1].add(name, reader.getValue());
+            }
+            name = null;
+        }
+    }
+
+    private void push(QJson node) {
+        if (depth == nodes.length) {
+            QJson[] a = new QJson[depth * 2];
+            System.arraycopy(nodes, 0, a, 0, depth);
+            nodes = a;
+            int[] h = new int[depth * 2];
+            System.arraycopy(hashes, 0, h, 0, depth);
+            hashes = h;
+        }
+        nodes[depth] = node;
+        hashes[depth++] = 0;
+    }
+
+    /**
+     * @return nesting level of the current token, see QJsonReader.getDepth()
+     */
+    public int getDepth() {
+        return (reader.getDepth());
+    }
+
+    /**
+     * @return text of the current token, see QJsonReader.getString()
+     */
+    public String getString() {
+        return (reader.getString());
+    }
+
+    /**
+     * @return value of the current token, see QJsonReader.getValue()
+     */
+    public Object getValue() throws IOException {
+        return (reader.getValue());
+    }
+
+    public long getLong() throws IOException {
+        return (reader.getLong());
+    }
+
+    public double getDouble() throws IOException {
+        return (reader.getDouble());
+    }
+
+    public boolean getBoolean() throws IOException {
+        return (reader.getBoolean());
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * Node of frozen {@link QJson} tree, see {@link QJson#freeze()}.
+ * <p>
+ * All state is in final fields set by the constructor and is never changed, so a frozen tree may be
+ * read by any number of threads without locks and is safely published however its root is passed
+ * to them. Items are exactly sized: numbers of arrays of Long only or Double only items are packed
+ * in long[]/double[], names with their index are a {@link QJsonShape} shared by all objects of the
+ * tree with the same names, the index of big objects is built at freeze time. Any change throws
+ * UnsupportedOperationException.
+ */
+final class QJsonFrozen extends QJson {
+    private final int type;
+    private final int print_mode;
+    private final Object values; // Object[] of items, or long[] or double[] of packed numbers
+    private final QJsonShape shape; // names of items, null if all of them are null (arrays)
+
+    private QJsonFrozen(int type, int print_mode, Object values, QJsonShape shape) {
+        this.type = type;
+        this.print_mode = print_mode;
+        this.values = values;
+        this.shape = shape;
+    }
+
+    /**
+     * @return frozen copy of node with its subtree, node itself if it is frozen already
+     */
+    static QJson freeze(QJson node) {
+        return (freeze(node, new QJsonShape.Cache()));
+    }
+
+    private static QJson freeze(QJson node, QJsonShape.Cache shapes) {
+        if (node instanceof QJsonFrozen) return (node);
+        int count = node.size();
+        String[] names = null;
+        int hash = 0; // of names, for shapes
+        for (int i = 0; i < count; i++) {
+            String name = node.nameAt(i);
+            if (name != null && names == null) names = new String[count];
+            if (names != null) names[i] = name;
+            hash = 31 * hash + (name == null ? 0 : QJsonShape.key(name));
+        }
+        QJsonShape shape = null;
+        if (names != null) {
+            shape = shapes.share(names, count, hash).indexed();
+        }
+        Object packed = node.packedItems();
+        Object values;
+        if (packed instanceof long[]) values = Arrays.copyOf((long[]) packed, count);
+        else if (packed instanceof double[]) values = Arrays.copyOf((double[]) packed, count);
+        else values = freezeItems(node, count, shapes, names == null);
+        return (new QJsonFrozen(node.getType(), node.getPrintMode(), values, shape));
+    }
+
+    // items of node, children frozen; Long only or Double only items of unnamed ones packed
+    private static Object freezeItems(QJson node, int count, QJsonShape.Cache shapes, boolean unnamed) {
+        Object[] items = new Object[count];
+        boolean longs = unnamed && count > 0;
+        boolean doubles = longs;
+        for (int i = 0; i < count; i++) {
+            Object item = node.itemAt(i);
+            if (item instanceof QJson) item = freeze((QJson) item, shapes);
+            else if (!isImmutable(item)) item = item.toString(); // as writeJSONString() prints it
+            items[i] = item;
+            longs &= item instanceof Long;
+            doubles &= item instanceof Double;
+        }
+        if (longs) {
+            long[] a = new long[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = (Long) items[i];
+            }
+            return (a);
+        }
+        if (doubles) {
+            double[] a = new double[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = (Double) items[i];
+            }
+            return (a);
+        }
+        return (items);
+    }
+
+    private static boolean isImmutable(Object item) {
+        return (item == null || item instanceof String || item instanceof Long || item instanceof Double
+                || item instanceof Boolean || item instanceof Integer || item instanceof Short || item instanceof Byte
+                || item instanceof BigDecimal);
+    }
+
+    private static UnsupportedOperationException frozen() {
+        return (new UnsupportedOperationException("QJson is frozen"));
+    }
+
+    public QJson freeze() {
+        return (this);
+    }
+
+    public boolean isFrozen() {
+        return (true);
+    }
+
+    public int size() {
+        Object v = values;
+        if (v instanceof Object[]) return (((Object[]) v).length);
+        if (v instanceof long[]) return (((long[]) v).length);
+        return (((double[]) v).length);
+    }
+
+    public Object getItem(int index) {
+        Object v = values;
+        if (v instanceof Object[]) return (((Object[]) v)[index]);
+        if (v instanceof long[]) return (Long.valueOf(((long[]) v)[index]));
+        return (Double.valueOf(((double[]) v)[index]));
+    }
+
+    public String getItemName(int index) {
+        if (shape == null) {
+            if (index < 0 || index >= size()) throw (new ArrayIndexOutOfBoundsException(index));
+            return (null);
+        }
+        return (shape.names[index]);
+    }
+
+    public int getNameIndex(String name) {
+        if (shape == null) return (name == null ? size() - 1 : -1);
+        return (shape.indexOf(name));
+    } // last item with the same name, like QJson
+
+    public Vector getItemValues(String name) {
+        Vector v = new Vector();
+        for (int i = 0, size = size(); i < size; i++) {
+            String n = getItemName(i);
+            if (name == null ? n == null : name.equals(n)) v.add(getItem(i));
+        }
+        return (v);
+    }
+
+    public long[] getLongArray() {
+        if (values instanceof long[]) return (((long[]) values).clone());
+        return (super.getLongArray());
+    }
+
+    public double[] getDoubleArray() {
+        if (values instanceof double[]) return (((double[]) values).clone());
+        return (super.getDoubleArray());
+    }
+
+    public int getType() {
+        return (type);
+    }
+
+    public int getPrintMode() {
+        return (print_mode);
+    }
+
+    Object itemAt(int index) {
+        return (getItem(index));
+    }
+
+    String nameAt(int index) {
+        return (shape == null ? null : shape.names[index]);
+    }
+
+    Object packedItems() {
+        return (values instanceof Object[] ? null : values);
+    }
+
+    // QJson() constructor calls clear() and setType() before the node is built (values is null then)
+
+    public void clear() {
+        if (values != null) throw (frozen());
+    }
+
+    public void setType(int type) {
+        if (values != null) throw (frozen());
+    }
+
+    public void setPrintMode(int mode) {
+        if (values != null) throw (frozen());
+    }
+
+    public void addItem(Object value) {
+        throw (frozen());
+    }
+
+    public void addItem(String name, Object value) {
+        throw (frozen());
+    }
+
+    public void addItemArray(String name, Object[] values) {
+        throw (frozen());
+    }
+
+    public void setItem(String name, Object value) {
+        throw (frozen());
+    }
+
+    public void setItem(int index, Object value) {
+        throw (frozen());
+    }
+
+    // every parse into a node starts with it
+    void inflate() {
+        throw (frozen());
+    }
+}
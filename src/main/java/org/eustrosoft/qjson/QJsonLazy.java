@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Node of lazy {@link QJson} tree over {@link QJsonTape}, see {@link QJson#parseJSONLazy(byte[], int, int)}.
+ * <p>
+ * Items are created from the tape on first getItem() and kept, children are lazy nodes too.
+ * Names are compared with the document bytes, so lookup of a name creates nothing. Any change
+ * of the node (addItem(), setItem(), clear(), parsing into it) first moves all its items into
+ * the usual QJson storage and the node works as plain QJson after that.
+ */
+final class QJsonLazy extends QJson {
+    private static final Object UNREAD = new Object(); // not materialized slot of values[]
+    private static final int LOOKUPS_BEFORE_INDEX = 2; // name scans of big object before hash index is built
+
+    private QJsonTape tape; // null when not lazy anymore
+    private int start; // tape index of '{' or '['
+    private int[] positions; // tape index of every item value, on first access
+    private Object[] values; // materialized items or UNREAD
+    private HashMap<String, Integer> name_index;
+    private int lookups;
+
+    private QJsonLazy(QJsonTape tape, int start) {
+        super(tape.kind(start) == QJsonTape.KIND_OBJECT ? QJSON_TYPE_OBJECT : QJSON_TYPE_ARRAY);
+        this.tape = tape;
+        this.start = start;
+    }
+
+    static QJson root(QJsonTape tape) {
+        return (new QJsonLazy(tape, 0));
+    }
+
+    public int size() {
+        if (tape == null) return (super.size());
+        return (tape.count(start));
+    }
+
+    public Object getItem(int index) {
+        if (tape == null) return (super.getItem(index));
+        int position = position(index);
+        Object v = values[index];
+        if (v == UNREAD) values[index] = v = materialize(position);
+        return (v);
+    }
+
+    public String getItemName(int index) {
+        if (tape == null) return (super.getItemName(index));
+        int position = position(index);
+        return (getType() == QJSON_TYPE_ARRAY ? null : (String) tape.value(position - 1));
+    }
+
+    public int getNameIndex(String name) {
+        if (tape == null) return (super.getNameIndex(name));
+        int count = size();
+        if (getType() == QJSON_TYPE_ARRAY) return (name == null ? count - 1 : -1); // no names
+        if (name == null || count == 0) return (-1);
+        if (name_index != null) {
+            Integer index = name_index.get(name);
+            return (index == null ? -1 : index);
+        }
+        if (count > 8 && ++lookups > LOOKUPS_BEFORE_INDEX) {
+            HashMap<String, Integer> index = new HashMap<String, Integer>(count * 2);
+            for (int i = 0; i < count; i++) {
+                index.put(getItemName(i), i); // later duplicate wins
+            }
+            name_index = index;
+            return (getNameIndex(name));
+        }
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        position(0);
+        for (int i = count - 1; i >= 0; i--) {
+            if (tape.nameEquals(positions[i] - 1, key)) return (i);
+        }
+        return (-1);
+    } // last item with the same name, like QJson
+
+    public Vector getItemValues(String name) {
+        inflate();
+        return (super.getItemValues(name));
+    }
+
+    public void addItem(Object value) {
+        inflate();
+        super.addItem(value);
+    }
+
+    public void addItem(String name, Object value) {
+        inflate();
+        super.addItem(name, value);
+    }
+
+    public void addItemArray(String name, Object[] values) {
+        inflate();
+        super.addItemArray(name, values);
+    }
+
+    public void setItem(int index, Object value) {
+        inflate();
+        super.setItem(index, value);
+    }
+
+    public void clear() {
+        tape = null;
+        positions = null;
+        values = null;
+        name_index = null;
+        super.clear();
+    }
+
+    // cached item or new one which is not kept, so printing does not materialize the tree
+    Object itemAt(int index) {
+        if (tape == null) return (super.itemAt(index));
+        int position = position(index);
+        Object v = values[index];
+        return (v == UNREAD ? materialize(position) : v);
+    }
+
+    String nameAt(int index) {
+        return (getItemName(index));
+    }
+
+    private Object materialize(int position) {
+        int kind = tape.kind(position);
+        if (kind == QJsonTape.KIND_OBJECT || kind == QJsonTape.KIND_ARRAY) return (new QJsonLazy(tape, position));
+        return (tape.value(position));
+    }
+
+    // tape index of item value, positions[] are found on first call by hopping over subtrees
+    private int position(int index) {
+        int count = size();
+        if (index < 0 || index >= count) throw (new ArrayIndexOutOfBoundsException(index));
+        if (positions == null) {
+            int[] p = new int[count];
+            boolean object = getType() == QJSON_TYPE_OBJECT;
+            int t = start + 1;
+            for (int i = 0; i < count; i++) {
+                if (object) t++; // name
+                p[i] = t;
+                t = tape.next(t);
+            }
+            Object[] v = new Object[count];
+            Arrays.fill(v, UNREAD);
+            values = v;
+            positions = p;
+        }
+        return (positions[index]);
+    }
+
+    // move all items to QJson storage, node is not lazy after that
+    void inflate() {
+        if (tape == null) return;
+        int count = size();
+        String[] n = new String[count];
+        Object[] v = new Object[count];
+        for (int i = 0; i < count; i++) {
+            n[i] = getItemName(i);
+            v[i] = getItem(i);
+        }
+        clear();
+        for (int i = 0; i < count; i++) {
+            super.addItem(n[i], v[i]);
+        }
+    }
+}
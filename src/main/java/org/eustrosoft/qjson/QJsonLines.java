@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Reader of newline-delimited json (NDJSON, JSON Lines): one object or array per record, read
+ * one by one (or in batches) from one Reader or InputStream, never the whole stream at once.
+ * Memory used does not depend on the number of records, only on the biggest one.
+ * <p>
+ * All records share one {@link QJsonReader}, which reads the stream in windows (unlike
+ * {@link QJson#parseJSONReader(Reader)}, which must not read beyond its document), so records may
+ * also be concatenated without newlines or be split over several lines; blank lines are skipped.
+ * <pre>
+ * QJsonLines lines = new QJsonLines(in);
+ * List&lt;QJson&gt; batch = new ArrayList&lt;&gt;();
+ * while (lines.nextBatch(batch, 1000) > 0) {
+ *     store(batch);
+ *     batch.clear();
+ * }
+ * </pre>
+ */
+public class QJsonLines implements Closeable {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final QJsonReader reader;
+    private final JsonParser parser = new JsonParser();
+    private long count; // records read so far
+
+    public QJsonLines(Reader json) {
+        this(new QJsonReader(json));
+    }
+
+    /**
+     * UTF-8 encoded records
+     */
+    public QJsonLines(InputStream json) {
+        this(new QJsonReader(json));
+    }
+
+    /**
+     * records of reader which has read nothing yet; names of the records are taken from its
+     * symbols (see {@link QJsonReader#setSymbols(QJsonSymbols)}), if they are set
+     */
+    public QJsonLines(QJsonReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return next record or null at the end of input
+     */
+    public QJson next() throws IOException {
+        int ch = reader.nextDocument();
+        if (ch == -1) return (null);
+        QJson record = new QJson(ch == '[' ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        record.parseDocument(reader); // throws exception on anything but object or array
+        count++;
+        return (record);
+    }
+
+    /**
+     * bind next record to new instance of type, as JsonParser.parseJson(Class, String) does
+     *
+     * @return bound object or null at the end of input
+     */
+    public <T> T next(Class<T> type) throws IllegalAccessException, IOException, InstantiationException {
+        if (reader.nextDocument() == -1) return (null);
+        T record = parser.parseJson(type, reader);
+        count++;
+        return (record);
+    }
+
+    /**
+     * add up to max next records to batch
+     *
+     * @return number of records added, 0 at the end of input
+     */
+    public int nextBatch(List<? super QJson> batch, int max) throws IOException {
+        int n = 0;
+        QJson record;
+        while (n < max && (record = next()) != null) {
+            batch.add(record);
+            n++;
+        }
+        return (n);
+    }
+
+    public int nextBatch(List<? super QJson> batch) throws IOException {
+        return (nextBatch(batch, DEFAULT_BATCH_SIZE));
+    }
+
+    /**
+     * add up to max next records bound to new instances of type to batch
+     *
+     * @return number of records added, 0 at the end of input
+     */
+    public <T> int nextBatch(Class<T> type, List<? super T> batch, int max)
+            throws IllegalAccessException, IOException, InstantiationException {
+        int n = 0;
+        T record;
+        while (n < max && (record = next(type)) != null) {
+            batch.add(record);
+            n++;
+        }
+        return (n);
+    }
+
+    /**
+     * @return number of records read so far
+     */
+    public long getCount() {
+        return (count);
+    }
+
+    public QJsonReader getReader() {
+        return (reader);
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+}
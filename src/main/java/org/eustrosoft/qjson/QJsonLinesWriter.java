@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writer of newline-delimited json (NDJSON, JSON Lines), records read by {@link QJsonLines}:
+ * every record is written compact (newlines of strings escaped) on one line ended by '\n'.
+ * Records go through one {@link QJsonWriter} buffer, nothing is kept after a record is written.
+ * <pre>
+ * QJsonLinesWriter lines = new QJsonLinesWriter(out);
+ * for (Event e : events) lines.writeObject(e);
+ * lines.flush();
+ * </pre>
+ */
+public class QJsonLinesWriter implements Closeable, Flushable {
+    private final QJsonWriter writer;
+    private final JsonParser parser = new JsonParser();
+    private final StringBuilder scratch = new StringBuilder(); // json of object records
+    private long count; // records written so far
+
+    public QJsonLinesWriter(Writer out) {
+        this.writer = new QJsonWriter(out);
+    }
+
+    /**
+     * UTF-8 output
+     */
+    public QJsonLinesWriter(OutputStream out) {
+        this.writer = new QJsonWriter(out);
+    }
+
+    /**
+     * write record, object or array (null and other types throw IllegalStateException)
+     */
+    public QJsonLinesWriter write(QJson record) throws IOException {
+        writer.value(record).endLine();
+        count++;
+        return (this);
+    }
+
+    /**
+     * write object as record, same json as JsonParser.parseObject() returns
+     */
+    public QJsonLinesWriter writeObject(Object record) throws IOException {
+        scratch.setLength(0);
+        parser.writeObject(record, scratch);
+        writer.rawValue(scratch).endLine();
+        if (scratch.length() > QJsonContext.MAX_SCRATCH) {
+            scratch.setLength(0);
+            scratch.trimToSize(); // one big record keeps no big buffer
+        }
+        count++;
+        return (this);
+    }
+
+    /**
+     * write every item of records, see write() and writeObject()
+     */
+    public QJsonLinesWriter writeAll(Collection<?> records) throws IOException {
+        for (Object record : records) {
+            if (record instanceof QJson) write((QJson) record);
+            else writeObject(record);
+        }
+        return (this);
+    }
+
+    /**
+     * @return number of records written so far
+     */
+    public long getCount() {
+        return (count);
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+}
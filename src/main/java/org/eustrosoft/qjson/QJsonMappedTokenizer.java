@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link QJsonByteTokenizer} over a file mapped with FileChannel.map in windows of
+ * {@link #MAP_WINDOW_SIZE} bytes, so files of any size can be parsed and the file content
+ * never lands on the heap. Tokens crossing a window boundary are handled by the byte
+ * tokenizer itself, as all its reads go through {@link #fill()}.
+ */
+final class QJsonMappedTokenizer extends QJsonByteTokenizer {
+    static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int window;
+    private final long end;
+    private long offset; // file offset of the next window
+
+    QJsonMappedTokenizer(FileChannel channel) throws IOException {
+        this(channel, MAP_WINDOW_SIZE);
+    }
+
+    QJsonMappedTokenizer(FileChannel channel, int window) throws IOException {
+        super(ByteBuffer.allocate(0));
+        this.channel = channel;
+        this.window = window;
+        this.offset = channel.position();
+        this.end = channel.size();
+    }
+
+    @Override
+    boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        if (offset >= end) return (false);
+        long size = Math.min(window, end - offset);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, size); // previous window is unmapped by GC
+        offset += size;
+        limit = (int) size;
+        return (true);
+    }
+}
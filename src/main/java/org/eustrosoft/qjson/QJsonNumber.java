@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+/**
+ * One pass, exception free parsing of number literals for {@link QJson#literal2value(String)}.
+ * <p>
+ * Handles [+-]digits[.digits][(e|E)[+-]digits] straight from the scanned characters: integers
+ * go through an overflow checked long accumulator (as Long.parseLong does) and become Long,
+ * others become Double - exactly computed from the significand for up to 15 digits and a power
+ * of ten up to 22, by Double.parseDouble() otherwise. Anything else is left to the caller.
+ * <p>
+ * {@link QJsonReader} keeps an instance and calls scan(), which leaves the value unboxed in it.
+ */
+final class QJsonNumber {
+    private static final int MAX_FAST_DIGITS = 15; // 10^15 < 2^53, exact in double
+    private static final int MAX_SIGNIFICAND_DIGITS = 18; // fits long
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static final int KIND_NONE = 0; // not a plain decimal number
+    static final int KIND_LONG = 1;
+    static final int KIND_DOUBLE = 2;
+
+    long longValue; // result of scan() for KIND_LONG
+    double doubleValue; // result of scan() for KIND_DOUBLE
+
+    /**
+     * @return Long or Double value of literal, null if literal is not a plain decimal number
+     */
+    static Object parse(CharSequence s) {
+        QJsonNumber number = new QJsonNumber();
+        int kind = number.scan(s);
+        if (kind == KIND_LONG) return (Long.valueOf(number.longValue));
+        if (kind == KIND_DOUBLE) return (Double.valueOf(number.doubleValue));
+        return (null);
+    }
+
+    /**
+     * parse literal without boxing
+     *
+     * @return KIND_LONG with longValue set, KIND_DOUBLE with doubleValue set or KIND_NONE
+     */
+    int scan(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (length == 0) return (KIND_NONE);
+        char c = s.charAt(0);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        // long accumulator, negative like in Long.parseLong() to reach Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        boolean overflow = false;
+        // significand for double, first MAX_SIGNIFICAND_DIGITS significant digits
+        long significand = 0;
+        int digits = 0; // significant digits seen
+        int exponent = 0; // decimal exponent of significand
+        boolean any = false;
+        while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+            int d = c - '0';
+            any = true;
+            if (!overflow) {
+                if (result < multmin) {
+                    overflow = true;
+                } else {
+                    result *= 10;
+                    if (result < limit + d) overflow = true;
+                    else result -= d;
+                }
+            }
+            if (digits < MAX_SIGNIFICAND_DIGITS) {
+                significand = significand * 10 + d;
+                if (significand != 0) digits++;
+            } else {
+                digits++;
+                exponent++; // digit dropped
+            }
+            i++;
+        }
+        boolean integer = true;
+        if (i < length && s.charAt(i) == '.') {
+            integer = false;
+            i++;
+            while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+                any = true;
+                if (digits < MAX_SIGNIFICAND_DIGITS) {
+                    significand = significand * 10 + (c - '0');
+                    if (significand != 0) digits++;
+                    exponent--;
+                } else {
+                    digits++;
+                }
+                i++;
+            }
+        }
+        if (!any) return (KIND_NONE);
+        if (i < length && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            integer = false;
+            i++;
+            boolean exp_negative = false;
+            if (i < length && ((c = s.charAt(i)) == '-' || c == '+')) {
+                exp_negative = c == '-';
+                i++;
+            }
+            if (i == length) return (KIND_NONE);
+            int exp = 0;
+            while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+                if (exp < 100000) exp = exp * 10 + (c - '0');
+                i++;
+            }
+            exponent += exp_negative ? -exp : exp;
+        }
+        if (i != length) return (KIND_NONE);
+        if (integer && !overflow) {
+            longValue = negative ? result : -result;
+            return (KIND_LONG);
+        }
+        double value;
+        if (digits <= MAX_FAST_DIGITS && exponent >= -22 && exponent <= 22) {
+            value = (double) significand; // exact, so is the single multiplication/division
+            value = exponent >= 0 ? value * POW10[exponent] : value / POW10[-exponent];
+            doubleValue = negative ? -value : value;
+            return (KIND_DOUBLE);
+        }
+        doubleValue = Double.parseDouble(s.toString()); // hard case, still valid syntax, no exception
+        return (KIND_DOUBLE);
+    }
+
+    /**
+     * @return true if ASCII literal s[from..to) is a plain decimal number which parse() accepts
+     */
+    static boolean isPlain(byte[] s, int from, int to) {
+        int i = from;
+        if (i < to && (s[i] == '-' || s[i] == '+')) i++;
+        boolean any = false;
+        while (i < to && s[i] >= '0' && s[i] <= '9') {
+            any = true;
+            i++;
+        }
+        if (i < to && s[i] == '.') {
+            i++;
+            while (i < to && s[i] >= '0' && s[i] <= '9') {
+                any = true;
+                i++;
+            }
+        }
+        if (!any) return (false);
+        if (i < to && (s[i] == 'e' || s[i] == 'E')) {
+            i++;
+            if (i < to && (s[i] == '-' || s[i] == '+')) i++;
+            if (i == to) return (false);
+            while (i < to && s[i] >= '0' && s[i] <= '9') {
+                i++;
+            }
+        }
+        return (i == to);
+    }
+}
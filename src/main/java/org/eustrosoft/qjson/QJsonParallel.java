@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel parse of a document with big top-level array, see {@link QJson#parseJSONParallel(byte[], int, int, ForkJoinPool)},
+ * and parallel printing of big arrays and collections.
+ * <p>
+ * One pass over the input (strings and escapes tracked, nothing decoded) cuts the array at top-level
+ * commas into slices of about CHUNKS_PER_THREAD slices per thread of the pool. Every slice is read
+ * by a reader of its own as items of an array without brackets ({@link QJsonReader#enterItems()})
+ * and the parts are joined in order. The scan only counts brackets, the readers check everything
+ * else: if any slice fails, the whole document is parsed again by the calling thread, so errors
+ * (and lenient cases, like trailing comma at a cut) are exactly those of the sequential parse.
+ * <p>
+ * Printing cuts items into slices the same way, every slice is printed into a buffer of its own
+ * and the buffers are written in order with the separator printed between items, so the text
+ * is the one of the sequential print.
+ */
+final class QJsonParallel {
+    static final int MIN_SLICE = 1 << 16; // bytes or chars, smaller slices cost more than they give
+    private static final int CHUNKS_PER_THREAD = 4; // so threads which finished first take the rest
+    static final int MIN_PRINT_SLICE = 1024; // items
+
+    private QJsonParallel() {
+    }
+
+    static QJson parse(byte[] json, int off, int len, ForkJoinPool pool) throws IOException {
+        if (off < 0 || len < 0 || off + len > json.length) throw (new IndexOutOfBoundsException());
+        int[] slices = null;
+        if (len >= QJson.PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+            slices = slices(json, off, off + len, step(len, pool));
+        }
+        if (slices != null) {
+            QJson array = parse(new Slices(json, null, slices), pool);
+            if (array != null) return (array);
+        }
+        QJson q = new QJson(isArray(json, off, off + len) ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        q.parseJSONBytes(json, off, len);
+        return (q);
+    }
+
+    static QJson parse(String json, ForkJoinPool pool) throws IOException {
+        int[] slices = null;
+        if (json.length() >= QJson.PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+            slices = slices(json, step(json.length(), pool));
+        }
+        if (slices != null) {
+            QJson array = parse(new Slices(null, json, slices), pool);
+            if (array != null) return (array);
+        }
+        QJson q = new QJson(isArray(json) ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        q.parseJSONString(json);
+        return (q);
+    }
+
+    private static int step(int length, ForkJoinPool pool) {
+        return (Math.max(MIN_SLICE, length / (pool.getParallelism() * CHUNKS_PER_THREAD)));
+    }
+
+    // joined parts, null if some slice has an error
+    private static QJson parse(Slices all, ForkJoinPool pool) {
+        pool.invoke(all);
+        QJson[] parts = new QJson[all.parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            if (all.parts[i] == null || all.parts[i].part == null) return (null);
+            parts[i] = all.parts[i].part;
+        }
+        return (QJson.join(parts));
+    }
+
+    // pairs of [start, end) of slices of items of top-level array, cut at the first top-level comma
+    // after each step; null if json is not an array or the array is not closed (package-private for tests)
+    static int[] slices(byte[] json, int from, int to, int step) {
+        int p = skipSpace(json, from, to);
+        if (p == to || json[p] != '[') return (null);
+        int[] slices = new int[16];
+        int n = 0;
+        int start = p + 1;
+        int next = start + step;
+        int depth = 1;
+        for (int i = start; i < to; i++) {
+            switch (json[i]) {
+                case '"':
+                    for (i++; i < to && json[i] != '"'; i++) {
+                        if (json[i] == '\\') i++; // escaped char, '"' too
+                    }
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (--depth > 0) break;
+                    if (json[i] != ']') return (null); // not closed by its bracket: error of the sequential parse
+                    if (n > 0 && skipSpace(json, start, i) == i) return (Arrays.copyOf(slices, n)); // trailing comma
+                    slices = add(slices, n, start, i);
+                    return (Arrays.copyOf(slices, n + 2));
+                case ',':
+                    if (depth > 1 || i < next) break;
+                    slices = add(slices, n, start, i);
+                    n += 2;
+                    start = i + 1;
+                    next = start + step;
+                    break;
+            }
+        }
+        return (null);
+    }
+
+    // slices() of String
+    static int[] slices(String json, int step) {
+        int to = json.length();
+        int p = skipSpace(json, 0, to);
+        if (p == to || json.charAt(p) != '[') return (null);
+        int[] slices = new int[16];
+        int n = 0;
+        int start = p + 1;
+        int next = start + step;
+        int depth = 1;
+        for (int i = start; i < to; i++) {
+            switch (json.charAt(i)) {
+                case '"':
+                    for (i++; i < to && json.charAt(i) != '"'; i++) {
+                        if (json.charAt(i) == '\\') i++;
+                    }
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (--depth > 0) break;
+                    if (json.charAt(i) != ']') return (null);
+                    if (n > 0 && skipSpace(json, start, i) == i) return (Arrays.copyOf(slices, n));
+                    slices = add(slices, n, start, i);
+                    return (Arrays.copyOf(slices, n + 2));
+                case ',':
+                    if (depth > 1 || i < next) break;
+                    slices = add(slices, n, start, i);
+                    n += 2;
+                    start = i + 1;
+                    next = start + step;
+                    break;
+            }
+        }
+        return (null);
+    }
+
+    private static int[] add(int[] slices, int n, int start, int end) {
+        if (n + 2 > slices.length) slices = Arrays.copyOf(slices, slices.length * 2);
+        slices[n] = start;
+        slices[n + 1] = end;
+        return (slices);
+    }
+
+    private static int skipSpace(byte[] json, int from, int to) {
+        while (from < to && QJsonTokenizer.isCharInClass(json[from], QJsonTokenizer.CC_SPACE)) {
+            from++;
+        }
+        return (from);
+    }
+
+    private static int skipSpace(String json, int from, int to) {
+        while (from < to && QJsonTokenizer.isCharInClass(json.charAt(from), QJsonTokenizer.CC_SPACE)) {
+            from++;
+        }
+        return (from);
+    }
+
+    private static boolean isArray(byte[] json, int from, int to) {
+        int p = skipSpace(json, from, to);
+        return (p < to && json[p] == '[');
+    }
+
+    private static boolean isArray(String json) {
+        int p = skipSpace(json, 0, json.length());
+        return (p < json.length() && json.charAt(p) == '[');
+    }
+
+    // items of array printed by QJson.writeJSONString() between its brackets
+    static void print(QJson array, Writer out, int level, String close_item, ForkJoinPool pool) throws IOException {
+        int count = array.size();
+        int slices = printSlices(count, pool);
+        if (slices < 2) {
+            array.print_items(out, 0, count, level, close_item);
+            return;
+        }
+        Print[] parts = new Print[slices];
+        for (int i = 0; i < slices; i++) {
+            parts[i] = new Print(array, null, null, (int) ((long) count * i / slices),
+                    (int) ((long) count * (i + 1) / slices), level, close_item);
+        }
+        pool.invoke(new Prints(parts));
+        for (int i = 0; i < slices; i++) {
+            if (i > 0) {
+                out.write(",");
+                out.write(close_item);
+            }
+            out.append(parts[i].out.sb);
+        }
+    }
+
+    // items of collection written by JsonParser.writeCollection() between its brackets
+    static void write(JsonParser parser, Collection<?> collection, Appendable out, ForkJoinPool pool) throws IOException {
+        Object[] items = collection.toArray(); // one view of concurrent or lazy collection
+        int slices = printSlices(items.length, pool);
+        Print[] parts = new Print[Math.max(slices, 1)];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new Print(null, parser, items, (int) ((long) items.length * i / parts.length),
+                    (int) ((long) items.length * (i + 1) / parts.length), 0, null);
+        }
+        if (parts.length == 1) parts[0].compute();
+        else pool.invoke(new Prints(parts));
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) out.append(',');
+            out.append(parts[i].out.sb);
+        }
+    }
+
+    private static int printSlices(int count, ForkJoinPool pool) {
+        if (pool.getParallelism() < 2) return (1);
+        return (Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, count / MIN_PRINT_SLICE));
+    }
+
+    private static final class Prints extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Print[] parts;
+
+        Prints(Print[] parts) {
+            this.parts = parts;
+        }
+
+        protected void compute() {
+            invokeAll(parts);
+        }
+    }
+
+    // items[from..to) of QJson array or of JsonParser collection
+    private static final class Print extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final QJson array; // one of array or parser with items is printed
+        private final JsonParser parser;
+        private final Object[] items;
+        private final int from;
+        private final int to;
+        private final int level;
+        private final String close_item;
+        final QJsonContext.Output out = new QJsonContext.Output();
+
+        Print(QJson array, JsonParser parser, Object[] items, int from, int to, int level, String close_item) {
+            this.array = array;
+            this.parser = parser;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+            this.close_item = close_item;
+        }
+
+        protected void compute() {
+            try {
+                if (array != null) {
+                    array.print_items(out, from, to, level, close_item);
+                    return;
+                }
+                StringBuilder sb = out.sb;
+                for (int i = from; i < to; i++) {
+                    if (i > from) sb.append(',');
+                    parser.writeValue(items[i], sb);
+                }
+            } catch (IOException e) {
+                throw (new IllegalStateException(e)); // never, output is a StringBuilder
+            }
+        }
+    }
+
+    // all slices of one document, forked at once
+    private static final class Slices extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final byte[] bytes; // one of bytes or string is the input
+        final String string;
+        final int[] bounds;
+        final Slice[] parts;
+
+        Slices(byte[] bytes, String string, int[] bounds) {
+            this.bytes = bytes;
+            this.string = string;
+            this.bounds = bounds;
+            this.parts = new Slice[bounds.length / 2];
+        }
+
+        protected void compute() {
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new Slice(this, bounds[2 * i], bounds[2 * i + 1]);
+            }
+            invokeAll(parts);
+        }
+    }
+
+    private static final class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Slices all;
+        private final int start;
+        private final int end;
+        QJson part; // null if the slice has an error
+
+        Slice(Slices all, int start, int end) {
+            this.all = all;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            QJsonReader reader = all.bytes != null ? new QJsonReader(all.bytes, start, end - start)
+                    : new QJsonReader(new QJsonCharTokenizer(all.string, start, end), null);
+            try {
+                part = QJson.parseItems(reader);
+            } catch (IOException e) {
+                part = null; // parsed again by one thread, for the exception
+            }
+        }
+    }
+}
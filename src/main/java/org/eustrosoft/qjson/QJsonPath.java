@@ -0,0 +1,308 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled JSON Pointer (RFC 6901: "/a/b/0", "~0" for '~' and "~1" for '/' in names, "" for the
+ * whole document) with one extension: segment "*" matches every item of an object or an array.
+ * A path is parsed once and then evaluated any number of times (a path is immutable, threads may
+ * share it):
+ * <ul>
+ * <li>against a QJson tree: {@link #get(QJson)} and {@link #getAll(QJson)}, each step is one
+ * getNameIndex() or index, instead of getItemQJson("a").getItemQJson("b").getItem(0)</li>
+ * <li>against the input of a QJsonReader: {@link #read(QJsonReader)} and {@link #read(QJsonReader, QJsonPath...)}
+ * build nothing but the matched values, subtrees which no path goes into are skipped by the
+ * tokenizer ({@link QJsonReader#skipChildren()}, strings are not decoded), and reading stops as soon
+ * as every path has its value, the rest of the input is not read</li>
+ * </ul>
+ * Objects and arrays are returned as QJson, other values as QJson stores them. Segment of digits
+ * ("0", "12", no leading zeros) is an index in arrays and a name in objects. Of object items with
+ * the same name the tree has the last one (as getItem(String) does) and the reader meets the first one.
+ * <pre>
+ * QJsonPath id = QJsonPath.compile("/user/id");
+ * QJsonPath tags = QJsonPath.compile("/items/*&#47;tag");
+ * Object[] values = QJsonPath.read(new QJsonReader(in), id, tags); // id and the first tag
+ * </pre>
+ */
+public final class QJsonPath {
+    private static final String WILDCARD = "*";
+
+    private final String pointer;
+    private final String[] names; // segments, WILDCARD for "*"
+    private final int[] indexes; // array index of segment or -1
+
+    private QJsonPath(String pointer, String[] names, int[] indexes) {
+        this.pointer = pointer;
+        this.names = names;
+        this.indexes = indexes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if pointer is not "" and does not start with '/', or has
+     * '~' not followed by '0' or '1'
+     */
+    public static QJsonPath compile(String pointer) {
+        if (pointer.isEmpty()) return (new QJsonPath(pointer, new String[0], new int[0]));
+        if (pointer.charAt(0) != '/') throw (new IllegalArgumentException("QJsonPath: no leading '/' in " + pointer));
+        List<String> segments = new ArrayList<String>();
+        int start = 1;
+        while (true) {
+            int end = pointer.indexOf('/', start);
+            segments.add(unescape(pointer, start, end < 0 ? pointer.length() : end));
+            if (end < 0) break;
+            start = end + 1;
+        }
+        String[] names = segments.toArray(new String[0]);
+        int[] indexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            indexes[i] = index(names[i]);
+        }
+        return (new QJsonPath(pointer, names, indexes));
+    }
+
+    private static String unescape(String pointer, int start, int end) {
+        String segment = pointer.substring(start, end);
+        if (segment.indexOf('~') < 0) return (segment.equals(WILDCARD) ? WILDCARD : segment);
+        StringBuilder sb = new StringBuilder(segment.length());
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c != '~') {
+                sb.append(c);
+                continue;
+            }
+            char e = ++i < segment.length() ? segment.charAt(i) : 0;
+            if (e != '0' && e != '1') throw (new IllegalArgumentException("QJsonPath: bad escape in " + pointer));
+            sb.append(e == '0' ? '~' : '/');
+        }
+        return (sb.toString());
+    }
+
+    // RFC 6901 array index: "0" or digits without leading zero, -1 for names
+    private static int index(String segment) {
+        int length = segment.length();
+        if (length == 0 || length > 9 || (segment.charAt(0) == '0' && length > 1)) return (-1);
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') return (-1);
+            n = n * 10 + (c - '0');
+        }
+        return (n);
+    }
+
+    public int size() {
+        return (names.length);
+    }
+
+    public boolean hasWildcard() {
+        for (String name : names) {
+            if (name == WILDCARD) return (true);
+        }
+        return (false);
+    }
+
+    public String toString() {
+        return (pointer);
+    }
+
+    // TREE SECTION
+
+    /**
+     * @return the value at this path in json (the first of them for a path with "*"), null if there is none
+     */
+    public Object get(QJson json) {
+        return (get(json, 0));
+    }
+
+    private Object get(Object node, int from) {
+        for (int i = from; i < names.length; i++) {
+            if (!(node instanceof QJson)) return (null);
+            QJson q = (QJson) node;
+            if (names[i] == WILDCARD) {
+                for (int j = 0, size = q.size(); j < size; j++) {
+                    Object v = get(q.getItem(j), i + 1);
+                    if (v != null) return (v);
+                }
+                return (null);
+            }
+            int index = item(q, i);
+            if (index < 0) return (null);
+            node = q.getItem(index);
+        }
+        return (node);
+    }
+
+    /**
+     * @return all values at this path in json, in document order (one or none for a path without "*")
+     */
+    public List<Object> getAll(QJson json) {
+        List<Object> values = new ArrayList<Object>();
+        getAll(json, 0, values);
+        return (values);
+    }
+
+    private void getAll(Object node, int from, List<Object> values) {
+        for (int i = from; i < names.length; i++) {
+            if (!(node instanceof QJson)) return;
+            QJson q = (QJson) node;
+            if (names[i] == WILDCARD) {
+                for (int j = 0, size = q.size(); j < size; j++) {
+                    getAll(q.getItem(j), i + 1, values);
+                }
+                return;
+            }
+            int index = item(q, i);
+            if (index < 0) return;
+            node = q.getItem(index);
+        }
+        values.add(node);
+    }
+
+    // index of item of segment i in q, -1 if there is none
+    private int item(QJson q, int i) {
+        if (q.getType() != QJson.QJSON_TYPE_ARRAY) return (q.getNameIndex(names[i]));
+        return (indexes[i] < q.size() ? indexes[i] : -1);
+    }
+
+    // STREAM SECTION
+
+    /**
+     * read the value at this path (the first one for a path with "*") from reader which has read nothing yet,
+     * stops right after it
+     *
+     * @return the value or null if there is none
+     */
+    public Object read(QJsonReader reader) throws IOException {
+        return (read(reader, this)[0]);
+    }
+
+    /**
+     * read values at paths (the first one for a path with "*") in one pass over reader which has read
+     * nothing yet, stops as soon as every path has its value
+     *
+     * @return values in order of paths, null for paths with no value
+     */
+    public static Object[] read(QJsonReader reader, QJsonPath... paths) throws IOException {
+        Match match = new Match(paths, false);
+        match.run(reader);
+        return (match.values);
+    }
+
+    /**
+     * read all values at this path from reader which has read nothing yet, in document order;
+     * without "*" in the path, stops right after the value
+     */
+    public List<Object> readAll(QJsonReader reader) throws IOException {
+        Match match = new Match(new QJsonPath[]{this}, true);
+        match.run(reader);
+        return (match.all);
+    }
+
+    // one pass of reader over paths
+    private static final class Match {
+        private final QJsonPath[] paths;
+        private final boolean[] wildcard; // of paths
+        private final Object[] values;
+        private final boolean[] found;
+        private final List<Object> all; // values of paths[0] if all of them are wanted
+        private int left; // paths which are not found yet
+
+        Match(QJsonPath[] paths, boolean all) {
+            this.paths = paths;
+            this.wildcard = new boolean[paths.length];
+            this.values = new Object[paths.length];
+            this.found = new boolean[paths.length];
+            this.all = all ? new ArrayList<Object>() : null;
+            this.left = paths.length;
+            for (int p = 0; p < paths.length; p++) {
+                wildcard[p] = paths[p].hasWildcard();
+            }
+        }
+
+        void run(QJsonReader reader) throws IOException {
+            int token = reader.nextToken();
+            int[] alive = new int[paths.length];
+            for (int p = 0; p < paths.length; p++) {
+                alive[p] = p;
+            }
+            value(reader, token, alive, paths.length, 0);
+        }
+
+        /**
+         * match value which token was just read; alive[0..n) are paths which matched depth segments
+         * up to it. The value is read completely unless all paths are found
+         *
+         * @return false when all paths are found and reading stops
+         */
+        private boolean value(QJsonReader reader, int token, int[] alive, int n, int depth) throws IOException {
+            boolean ends = false; // some path ends at this value
+            for (int i = 0; i < n && !ends; i++) {
+                ends = !found[alive[i]] && paths[alive[i]].names.length == depth;
+            }
+            if (ends) {
+                // the value is read as a whole, deeper paths are taken from it
+                Object v = QJson.readValue(reader, token);
+                for (int i = 0; i < n; i++) {
+                    int p = alive[i];
+                    if (found[p]) continue;
+                    if (paths[p].names.length == depth) take(p, v);
+                    else if (all != null) paths[p].getAll(v, depth, all);
+                    else take(p, paths[p].get(v, depth));
+                }
+                return (left > 0);
+            }
+            if (token != QJsonReader.TOKEN_START_OBJECT && token != QJsonReader.TOKEN_START_ARRAY) return (true);
+            int deeper = 0; // paths not found yet, moved to the front of alive
+            for (int i = 0; i < n; i++) {
+                if (!found[alive[i]]) alive[deeper++] = alive[i];
+            }
+            if (deeper == 0) {
+                reader.skipChildren();
+                return (true);
+            }
+            boolean object = token == QJsonReader.TOKEN_START_OBJECT;
+            int[] next = new int[deeper];
+            for (int index = 0; ; index++) {
+                token = reader.nextToken();
+                if (token == QJsonReader.TOKEN_END_OBJECT || token == QJsonReader.TOKEN_END_ARRAY) return (true);
+                int m = 0;
+                for (int i = 0; i < deeper; i++) {
+                    int p = alive[i];
+                    if (!found[p] && paths[p].matches(reader, object, index, depth)) next[m++] = p;
+                }
+                if (object) token = reader.nextToken(); // value of the name
+                if (m == 0) reader.skipChildren();
+                else if (!value(reader, token, next, m, depth + 1)) return (false);
+            }
+        }
+
+        // value of path p; a path without "*" has one value (null too), a path with it looks further for not null one
+        private void take(int p, Object v) {
+            if (all != null) {
+                all.add(v);
+                if (wildcard[p]) return;
+            } else {
+                values[p] = v;
+                if (v == null && wildcard[p]) return;
+            }
+            found[p] = true;
+            left--;
+        }
+    }
+
+    // segment depth matches item index of object (current token is its name) or array
+    private boolean matches(QJsonReader reader, boolean object, int index, int depth) {
+        String name = names[depth];
+        if (name == WILDCARD) return (true);
+        if (object) return (reader.nameEquals(name));
+        return (indexes[depth] == index);
+    }
+}
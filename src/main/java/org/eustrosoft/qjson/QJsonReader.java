@@ -0,0 +1,447 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pull-style JSON reader: returns the document token by token without building a QJson tree,
+ * memory used does not depend on document size (only on nesting depth).
+ * <p>
+ * Accepts the same input as {@link QJson#parseJSONReader(Reader)} (same string escapes, literal
+ * characters and {@link QJson#literal2value(String)} values, trailing commas allowed) and reads
+ * exactly one top-level object or array, nothing after it. Items must be separated by commas:
+ * the recursive parser before it also took any character in place of the comma after a value in an
+ * object, and skipped a '"' right after an item of an array.
+ * <pre>
+ * QJsonReader reader = new QJsonReader(json);
+ * while (reader.nextToken() != QJsonReader.TOKEN_END_DOCUMENT) {
+ *     if (reader.getToken() == QJsonReader.TOKEN_NAME &amp;&amp; "id".equals(reader.getString())) {
+ *         reader.nextToken();
+ *         long id = reader.getLong();
+ *     }
+ * }
+ * </pre>
+ */
+public class QJsonReader implements Closeable {
+    public static final int TOKEN_NONE = 0; // nothing read yet
+    public static final int TOKEN_START_OBJECT = 1;
+    public static final int TOKEN_END_OBJECT = 2;
+    public static final int TOKEN_START_ARRAY = 3;
+    public static final int TOKEN_END_ARRAY = 4;
+    public static final int TOKEN_NAME = 5;
+    public static final int TOKEN_STRING = 6;
+    public static final int TOKEN_NUMBER = 7;
+    public static final int TOKEN_TRUE = 8;
+    public static final int TOKEN_FALSE = 9;
+    public static final int TOKEN_NULL = 10;
+    public static final int TOKEN_END_DOCUMENT = 11;
+
+    private static final int NO_CHAR = -2;
+    // what may come next in the current container
+    private static final int EXPECT_FIRST = 0; // after '{' or '['
+    private static final int EXPECT_NEXT = 1; // after item : ',' or closing bracket
+    private static final int EXPECT_ITEM = 2; // after ',' : item (or closing bracket, trailing comma)
+    private static final int EXPECT_VALUE = 3; // after name and ':'
+
+    private QJsonTokenizer json;
+    private Closeable source;
+    private boolean[] objects = new boolean[32]; // container stack, true for object
+    private int depth;
+    private int expect;
+    private int c = NO_CHAR; // character read by tokenizer but not processed yet
+    private int token = TOKEN_NONE;
+    private String text; // getString() of current token, if called
+    private final QJsonNumber number = new QJsonNumber(); // scratch of number parsing
+    private int scanned = -1; // QJsonNumber kind of current token if it is parsed already, -1 if not
+    private boolean items; // input is items of an array without brackets, see enterItems()
+    private boolean skipping; // skipChildren() in progress: strings are checked, not decoded
+    private QJsonSymbols symbols; // names for getString(), null to create every one
+    private QJsonShape.Cache shapes; // names of objects parsed by QJson from this reader, on first use
+    // state before the last nextToken(), see mark()
+    private int mark_depth;
+    private int mark_expect;
+    private int mark_c;
+    private int mark_token;
+
+    public QJsonReader(Reader json) {
+        this(new QJsonCharTokenizer(json), json);
+    }
+
+    public QJsonReader(String json) {
+        this(new QJsonCharTokenizer(json), null);
+    }
+
+    /**
+     * UTF-8 encoded json
+     */
+    public QJsonReader(InputStream json) {
+        this(new QJsonByteTokenizer(json), json);
+    }
+
+    /**
+     * UTF-8 encoded json, from position to limit of buffer (not copied, position not changed)
+     */
+    public QJsonReader(ByteBuffer json) {
+        this(new QJsonByteTokenizer(json), null);
+    }
+
+    public QJsonReader(byte[] json, int off, int len) {
+        this(ByteBuffer.wrap(json, off, len));
+    }
+
+    /**
+     * UTF-8 encoded json file, memory mapped like {@link QJson#parseFile(Path)}; close() closes it
+     */
+    public QJsonReader(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    private QJsonReader(FileChannel channel) throws IOException {
+        this(new QJsonMappedTokenizer(channel), channel);
+    }
+
+    QJsonReader(QJsonTokenizer json, Closeable source) {
+        this.json = json;
+        this.source = source;
+    }
+
+    /**
+     * start reading the next document from json, as a new reader would do, keeping the container
+     * stack, number scratch, symbols and shapes of this one (see {@link QJsonContext})
+     */
+    QJsonReader reset(QJsonTokenizer json, Closeable source) {
+        this.json = json;
+        this.source = source;
+        depth = 0;
+        expect = EXPECT_FIRST;
+        c = NO_CHAR;
+        token = TOKEN_NONE;
+        text = null;
+        scanned = -1;
+        items = false;
+        skipping = false;
+        return (this);
+    }
+
+    /**
+     * start reading inside of container which opening bracket is already read
+     */
+    QJsonReader enter(boolean object) {
+        push(object);
+        token = object ? TOKEN_START_OBJECT : TOKEN_START_ARRAY;
+        return (this);
+    }
+
+    /**
+     * start reading input which is items of an array, without its brackets (a slice of a big array
+     * parsed in parallel): like enter(false), and the end of input closes the array
+     */
+    QJsonReader enterItems() {
+        items = true;
+        return (enter(false));
+    }
+
+    /**
+     * start reading the next top-level object or array of the same input (concatenated or
+     * newline-delimited documents, see {@link QJsonLines}), after the end of the current one
+     *
+     * @return first character of the next document ('{' or '[' unless json has an error) or -1 at the end of input
+     */
+    int nextDocument() throws IOException {
+        int ch = nextChar();
+        reset(json, source);
+        c = ch;
+        return (ch);
+    }
+
+    /**
+     * remember the state between tokens: a token cut by the end of input fed so far (see
+     * {@link QJsonFeeder}) is read again from the same state by rewind() and nextToken()
+     */
+    void mark() {
+        mark_depth = depth;
+        mark_expect = expect;
+        mark_c = c;
+        mark_token = token;
+    }
+
+    // objects[] below mark_depth is not changed by a token, push() is the last step of reading one
+    void rewind() {
+        depth = mark_depth;
+        expect = mark_expect;
+        c = mark_c;
+        token = mark_token;
+        text = null;
+        scanned = -1;
+    }
+
+    QJsonTokenizer getTokenizer() {
+        return (json);
+    }
+
+    /**
+     * @return next token, TOKEN_END_DOCUMENT after top-level object or array is closed
+     */
+    public int nextToken() throws IOException {
+        text = null;
+        scanned = -1;
+        if (depth == 0) {
+            if (token != TOKEN_NONE) return (token = TOKEN_END_DOCUMENT);
+            int ch = nextChar();
+            if (ch == '{') return (token = push(true));
+            if (ch == '[') return (token = push(false));
+            throw (QJson.parseException(QJson.CONTEXT_GLOBAL, ch));
+        }
+        boolean object = objects[depth - 1];
+        int ch = nextChar();
+        switch (expect) {
+            case EXPECT_NEXT:
+                if (ch == ',') {
+                    expect = EXPECT_ITEM;
+                    return (nextToken());
+                }
+                if (ch == (object ? '}' : ']')) return (token = pop());
+                if (ch == -1 && object) return (token = pop()); // end of input closes objects, as old parser did
+                if (ch == -1 && items && depth == 1) return (token = pop());
+                throw (QJson.parseException(object ? QJson.CONTEXT_OBJECT : QJson.CONTEXT_ARRAY, ch));
+            case EXPECT_FIRST:
+            case EXPECT_ITEM:
+                if (ch == (object ? '}' : ']')) return (token = pop());
+                if (object) return (token = readName(ch));
+                return (token = readValue(ch));
+            default: // EXPECT_VALUE
+                return (token = readValue(ch));
+        }
+    }
+
+    private int nextChar() throws IOException {
+        int ch = c;
+        c = NO_CHAR;
+        if (ch == NO_CHAR || QJsonTokenizer.isCharInClass(ch, QJsonTokenizer.CC_SPACE)) ch = json.skipSpaceAny();
+        return (ch);
+    }
+
+    private int push(boolean object) {
+        if (depth == objects.length) {
+            boolean[] a = new boolean[depth * 2];
+            System.arraycopy(objects, 0, a, 0, depth);
+            objects = a;
+        }
+        objects[depth++] = object;
+        expect = EXPECT_FIRST;
+        return (object ? TOKEN_START_OBJECT : TOKEN_START_ARRAY);
+    }
+
+    private int pop() {
+        boolean object = objects[--depth];
+        expect = EXPECT_NEXT;
+        return (object ? TOKEN_END_OBJECT : TOKEN_END_ARRAY);
+    }
+
+    private int readName(int ch) throws IOException {
+        if (ch != '"') throw (QJson.parseException(QJson.CONTEXT_OBJECT, ch));
+        StringBuilder sb = json.token;
+        sb.setLength(0);
+        int length = skipping ? json.skipString() : json.readString(sb) == '"' ? sb.length() : -1;
+        if (length < 0) throw (QJson.parseException(QJson.CONTEXT_NAME, -1)); // end of input inside name
+        if (length == 0) throw (QJson.parseException(QJson.CONTEXT_NAME, '"')); // empty name
+        ch = json.skipSpaceAny();
+        if (ch != ':') throw (QJson.parseException(QJson.CONTEXT_NAME_AFTER, ch));
+        expect = EXPECT_VALUE;
+        return (TOKEN_NAME);
+    }
+
+    private int readValue(int ch) throws IOException {
+        expect = EXPECT_NEXT;
+        if (ch == '{') return (push(true));
+        if (ch == '[') return (push(false));
+        StringBuilder sb = json.token;
+        sb.setLength(0);
+        if (ch == '"') {
+            if (skipping) c = json.skipString() >= 0 ? NO_CHAR : -1;
+            else c = json.readString(sb) == '"' ? NO_CHAR : -1;
+            return (TOKEN_STRING);
+        }
+        if (!QJsonTokenizer.isCharInClass(ch, QJsonTokenizer.CC_LITERAL)) {
+            throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, ch));
+        }
+        sb.append((char) ch); // save char, it is part of value!
+        c = json.readLiteral(sb);
+        if (isToken(sb, QJson.LITERAL_TRUE)) return (TOKEN_TRUE);
+        if (isToken(sb, QJson.LITERAL_FALSE)) return (TOKEN_FALSE);
+        if (isToken(sb, QJson.LITERAL_NULL)) return (TOKEN_NULL);
+        return (TOKEN_NUMBER);
+    }
+
+    private static boolean isToken(StringBuilder sb, String literal) {
+        int length = literal.length();
+        if (sb.length() != length) return (false);
+        for (int i = 0; i < length; i++) {
+            if (sb.charAt(i) != literal.charAt(i)) return (false);
+        }
+        return (true);
+    }
+
+    /**
+     * if current token is TOKEN_START_OBJECT or TOKEN_START_ARRAY, skip everything up to
+     * the matching end token (which becomes current token), otherwise do nothing. Strings and
+     * names inside are checked but not decoded
+     */
+    public void skipChildren() throws IOException {
+        if (token != TOKEN_START_OBJECT && token != TOKEN_START_ARRAY) return;
+        int target = depth - 1;
+        skipping = true;
+        try {
+            while (depth > target) {
+                nextToken();
+            }
+        } finally {
+            skipping = false;
+        }
+    }
+
+    public int getToken() {
+        return (token);
+    }
+
+    /**
+     * @return nesting level, 1 inside of top-level container
+     */
+    public int getDepth() {
+        return (depth);
+    }
+
+    /**
+     * @return text of TOKEN_NAME, TOKEN_STRING or literal token (TOKEN_NUMBER and so on), null for others
+     */
+    public String getString() {
+        if (text == null && token >= TOKEN_NAME && token <= TOKEN_NULL) {
+            if (token == TOKEN_NAME && symbols != null) text = symbols.intern(json.token, QJsonTokenizer.hash(json.token));
+            else text = json.token.toString();
+        }
+        return (text);
+    }
+
+    /**
+     * take names (getString() of TOKEN_NAME) from symbols, so a name which is there already
+     * creates no String; null (the default) creates every name
+     */
+    public void setSymbols(QJsonSymbols symbols) {
+        this.symbols = symbols;
+    }
+
+    public QJsonSymbols getSymbols() {
+        return (symbols);
+    }
+
+    // shapes of QJson objects parsed from this reader
+    QJsonShape.Cache shapes() {
+        if (shapes == null) shapes = new QJsonShape.Cache();
+        return (shapes);
+    }
+
+    // current TOKEN_NAME is equal to name, without making String
+    boolean nameEquals(String name) {
+        StringBuilder t = json.token;
+        return (name.length() == t.length() && name.contentEquals(t));
+    }
+
+    // getString() without making String, valid until the next token
+    CharSequence getText() {
+        return (json.token);
+    }
+
+    /**
+     * @return value of current token as QJson stores it: String, Long, Double, Boolean or null
+     */
+    public Object getValue() throws IOException {
+        switch (token) {
+            case TOKEN_NAME:
+            case TOKEN_STRING:
+                return (getString());
+            case TOKEN_NUMBER:
+                int kind = scanNumber(); // straight from token chars, no String
+                if (kind == QJsonNumber.KIND_LONG) return (Long.valueOf(number.longValue));
+                if (kind == QJsonNumber.KIND_DOUBLE) return (Double.valueOf(number.doubleValue));
+                return (QJson.literal2valueSlow(getString()));
+            case TOKEN_TRUE:
+                return (Boolean.TRUE);
+            case TOKEN_FALSE:
+                return (Boolean.FALSE);
+            default:
+                return (null);
+        }
+    }
+
+    public long getLong() throws IOException {
+        int kind = scanNumber();
+        if (kind == QJsonNumber.KIND_LONG) return (number.longValue);
+        if (kind == QJsonNumber.KIND_DOUBLE) return ((long) number.doubleValue);
+        return (getNumber().longValue());
+    }
+
+    public double getDouble() throws IOException {
+        int kind = scanNumber();
+        if (kind == QJsonNumber.KIND_LONG) return (number.longValue);
+        if (kind == QJsonNumber.KIND_DOUBLE) return (number.doubleValue);
+        return (getNumber().doubleValue());
+    }
+
+    /**
+     * parse current TOKEN_NUMBER without boxing
+     *
+     * @return QJsonNumber.KIND_LONG (see scannedLong()), KIND_DOUBLE (see scannedDouble()) or
+     * KIND_NONE for other tokens and literals which only getValue() can parse
+     */
+    int scanNumber() {
+        if (token != TOKEN_NUMBER) return (QJsonNumber.KIND_NONE);
+        if (scanned < 0) scanned = number.scan(json.token);
+        return (scanned);
+    }
+
+    // value of the last scanNumber(), without parsing it again
+    long scannedLong() {
+        return (number.longValue);
+    }
+
+    double scannedDouble() {
+        return (number.doubleValue);
+    }
+
+    public boolean getBoolean() throws IOException {
+        if (token == TOKEN_TRUE) return (true);
+        if (token == TOKEN_FALSE) return (false);
+        throw (QJson.parseLiteralException(QJson.CONTEXT_VALUE_LITERAL, String.valueOf(getString())));
+    }
+
+    /**
+     * @return exact value of TOKEN_NUMBER, for literals which do not fit long or double
+     */
+    public BigDecimal getBigDecimal() throws IOException {
+        if (scanNumber() != QJsonNumber.KIND_NONE) return (new BigDecimal(getString()));
+        return (new BigDecimal(getNumber().toString()));
+    }
+
+    private Number getNumber() throws IOException {
+        Object value = token == TOKEN_NUMBER ? getValue() : null;
+        if (value instanceof Number) return ((Number) value);
+        throw (QJson.parseLiteralException(QJson.CONTEXT_VALUE_LITERAL, String.valueOf(getString())));
+    }
+
+    public void close() throws IOException {
+        if (source != null) source.close();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.util.Arrays;
+
+/**
+ * Ordered names shared by parsed objects with the same keys (array of records and such),
+ * so each object keeps only its items[]. names[] is never changed: an object which gets
+ * a new name by addItem() copies names[] and leaves the shape.
+ * <p>
+ * Big shapes get a name index (open addressing, index + 1, 0 is empty) on first lookup;
+ * it is immutable too, so shapes of a tree may be read by any number of threads.
+ * Shapes of {@link QJsonFrozen} nodes may have null names (items added without a name) and get
+ * the index at once.
+ */
+final class QJsonShape {
+    // objects with more names than this get the index, smaller ones are scanned
+    private static final int INDEX_THRESHOLD = 8;
+
+    final String[] names;
+    private final int hash;
+    private volatile int[] index;
+
+    private QJsonShape(String[] names, int hash) {
+        this.names = names;
+        this.hash = hash;
+    }
+
+    /**
+     * @return index of the last name equal to name, -1 if there is no such name
+     */
+    int indexOf(String name) {
+        String[] n = names;
+        if (n.length <= INDEX_THRESHOLD || name == null) {
+            for (int i = n.length - 1; i >= 0; i--) {
+                if (n[i] == name || (name != null && name.equals(n[i]))) return (i);
+            }
+            return (-1);
+        }
+        int[] t = index;
+        if (t == null) index = t = buildIndex(n);
+        int mask = t.length - 1;
+        for (int slot = name.hashCode() & mask; t[slot] != 0; slot = (slot + 1) & mask) {
+            String candidate = n[t[slot] - 1];
+            if (candidate == name || candidate.equals(name)) return (t[slot] - 1);
+        }
+        return (-1);
+    }
+
+    private static int[] buildIndex(String[] names) {
+        int[] t = new int[Integer.highestOneBit(names.length) << 2]; // load below 1/2
+        int mask = t.length - 1;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) continue; // found by scan
+            int slot = names[i].hashCode() & mask;
+            while (t[slot] != 0 && !names[t[slot] - 1].equals(names[i])) {
+                slot = (slot + 1) & mask;
+            }
+            t[slot] = i + 1; // later duplicate wins
+        }
+        return (t);
+    }
+
+    // build the index now, not on first lookup
+    QJsonShape indexed() {
+        if (names.length > INDEX_THRESHOLD && index == null) index = buildIndex(names);
+        return (this);
+    }
+
+    // hash of one name for the hash of names, cheap as the parser counts it for every name: length and last char
+    static int key(CharSequence name) {
+        int length = name.length();
+        return (length == 0 ? 0 : (length << 16) + name.charAt(length - 1));
+    }
+
+    private boolean sameNames(String[] n, int count, int hash) {
+        if (this.hash != hash || names.length != count) return (false);
+        for (int i = 0; i < count; i++) {
+            if (names[i] != n[i] && (names[i] == null || !names[i].equals(n[i]))) return (false);
+        }
+        return (true);
+    }
+
+    /**
+     * Shapes of the documents parsed by one reader, see {@link QJsonReader#shapes()}: a reader of
+     * {@link QJsonContext} or {@link QJsonLines} parses one document after another. Holds up to
+     * MAX_SHAPES shapes; a new one over that empties the cache, so shapes of old documents are
+     * not kept for the life of the reader and the names of the next ones are shared again.
+     */
+    static final class Cache {
+        private static final int MAX_SHAPES = 1024;
+
+        private QJsonShape[] table = new QJsonShape[4];
+        private int size;
+
+        /**
+         * @param names names[0..count) are names of just parsed object (without nulls) or of frozen node
+         * @param h     31 * h + key(name) over names from 0, the parser counts it along the way
+         * @return shape with the same names, new one of them if there was none
+         */
+        QJsonShape share(String[] names, int count, int h) {
+            QJsonShape[] t = table;
+            int mask = t.length - 1;
+            int slot = (h ^ (h >>> 16)) & mask;
+            for (QJsonShape s; (s = t[slot]) != null; slot = (slot + 1) & mask) {
+                if (s.sameNames(names, count, h)) return (s);
+            }
+            if (size == MAX_SHAPES) { // full: start over, trees keep the shapes they have
+                table = t = new QJsonShape[4];
+                size = 0;
+                mask = t.length - 1;
+                slot = (h ^ (h >>> 16)) & mask;
+            }
+            QJsonShape s = new QJsonShape(names.length == count ? names : Arrays.copyOf(names, count), h);
+            t[slot] = s;
+            if (++size * 2 > t.length) grow();
+            return (s);
+        }
+
+        private void grow() {
+            QJsonShape[] old = table;
+            QJsonShape[] t = new QJsonShape[old.length * 2];
+            int mask = t.length - 1;
+            for (QJsonShape s : old) {
+                if (s == null) continue;
+                int slot = (s.hash ^ (s.hash >>> 16)) & mask;
+                while (t[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                t[slot] = s;
+            }
+            table = t;
+        }
+    }
+}
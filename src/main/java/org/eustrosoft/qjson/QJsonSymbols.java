@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+/**
+ * Bounded table of object names, so that every occurrence of a name in parsed documents is
+ * the same String. A name which is already in the table is found by the hash of the token
+ * buffer and by comparing its characters with the buffer, so no String is created for it at all.
+ * Readers without a table do not count the hash.
+ * <p>
+ * The table is 2-way set associative and grows up to capacity names. A new name takes the second
+ * slot of its pair and moves to the first one when it is found again, so names seen once (ids used
+ * as keys and such) only evict each other and do not push out the names every record has.
+ * Names longer than {@link #MAX_NAME_LENGTH} bypass the table and are not counted.
+ * <p>
+ * {@link QJsonReader#setSymbols(QJsonSymbols)} sets a table for one reader (a new table for each
+ * parse, or the same one for many), {@link QJson#setSymbols(QJsonSymbols)} sets the table shared
+ * by all QJson parses. Without a table every name is a new String, as a table costs more than it
+ * saves on small documents and on documents with no repeated names.
+ * <p>
+ * A table may be shared by threads (the slices of {@link QJson#parseJSONParallel(String)} intern
+ * through the shared table): lookups need no lock, new names are added and the table grows under
+ * the lock of the table, so it never grows beyond capacity. A racing lookup may drop a name just
+ * added, and counters are approximate then.
+ */
+public final class QJsonSymbols {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int MAX_NAME_LENGTH = 64;
+    private static final int INITIAL_SIZE = 16;
+
+    private final int capacity; // power of 2
+    private volatile String[] table; // pairs: [2 * set] name found again, [2 * set + 1] newer name
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public QJsonSymbols() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity max number of names, rounded up to a power of 2
+     */
+    public QJsonSymbols(int capacity) {
+        if (capacity < 2) throw (new IllegalArgumentException("capacity " + capacity));
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * @return String equal to name from the table, name is added to it if it is not there
+     */
+    public String intern(String name) {
+        return (intern(name, name.hashCode()));
+    }
+
+    /**
+     * @param hash name.toString().hashCode()
+     */
+    String intern(CharSequence name, int hash) {
+        if (name instanceof String && isKept((String) name, hash)) return ((String) name); // not counted
+        int length = name.length();
+        if (length > MAX_NAME_LENGTH) return (name.toString());
+        String[] t = table;
+        if (t != null) {
+            int i = slot(hash, t.length);
+            String s = t[i];
+            if (s != null && s.hashCode() == hash && s.length() == length && s.contentEquals(name)) {
+                hits++;
+                return (s);
+            }
+            String other = t[i + 1];
+            if (other != null && other.hashCode() == hash && other.length() == length && other.contentEquals(name)) {
+                t[i + 1] = s; // found again, to the first slot
+                t[i] = other;
+                hits++;
+                return (other);
+            }
+        }
+        return (insert(name.toString(), hash));
+    }
+
+    // name which was not found: checked again and added under the lock, so that racing threads
+    // neither add it twice nor grow the table twice
+    private synchronized String insert(String name, int hash) {
+        String[] t = table;
+        if (t == null) table = t = new String[Math.min(INITIAL_SIZE, capacity)];
+        int i = slot(hash, t.length);
+        if (name.equals(t[i])) return (t[i]); // added by another thread meanwhile
+        if (name.equals(t[i + 1])) return (t[i + 1]);
+        misses++;
+        if (t.length < capacity && (size >= t.length / 2 || (t[i + 1] != null && size >= t.length / 4))) {
+            grow(); // at half load, or earlier rather than evict
+        }
+        add(table, name);
+        return (name);
+    }
+
+    // name is the String of the table already (addItem() of a parsed name)
+    private boolean isKept(String name, int hash) {
+        String[] t = table;
+        if (t == null) return (false);
+        int i = slot(hash, t.length);
+        return (t[i] == name || t[i + 1] == name);
+    }
+
+    // first index of the pair of hash
+    private static int slot(int hash, int length) {
+        return (((hash ^ (hash >>> 16)) << 1) & (length - 1));
+    }
+
+    // under the lock; the new table is published when it is filled
+    private void grow() {
+        String[] old = table;
+        String[] t = new String[old.length * 2];
+        size = 0;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != null) add(t, old[i]); // a pair goes to one new pair, in the same order
+            if (old[i + 1] != null) add(t, old[i + 1]);
+        }
+        table = t;
+    }
+
+    // under the lock, name which is not in t: to the first free slot of its pair or instead of the newer name
+    private void add(String[] t, String name) {
+        int i = slot(name.hashCode(), t.length);
+        if (t[i] == null) {
+            t[i] = name;
+            size++;
+            return;
+        }
+        if (t[i + 1] != null) evictions++;
+        else size++;
+        t[i + 1] = name;
+    }
+
+    /**
+     * @return names found in the table
+     */
+    public long getHits() {
+        return (hits);
+    }
+
+    /**
+     * @return names which were not in the table (a String was created for each)
+     */
+    public long getMisses() {
+        return (misses);
+    }
+
+    /**
+     * @return names dropped to make room for other ones
+     */
+    public long getEvictions() {
+        return (evictions);
+    }
+
+    public int size() {
+        return (size);
+    }
+
+    public int getCapacity() {
+        return (capacity);
+    }
+
+    /**
+     * drop all names and reset counters
+     */
+    public synchronized void clear() {
+        table = null;
+        size = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public String toString() {
+        return ("QJsonSymbols{size=" + size + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "}");
+    }
+}
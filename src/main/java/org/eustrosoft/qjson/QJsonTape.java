@@ -0,0 +1,295 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Structural index ("tape") of UTF-8 json document for lazy {@link QJson} trees.
+ * <p>
+ * One pass over the bytes checks the syntax like {@link QJsonReader} does and records one long
+ * per token, nothing else is created. Entry layout: kind in bits 0-4, for strings/names and
+ * literals: length in bits 5-31 and byte offset in bits 32-63; for '{' and '[': tape index of the
+ * matching end entry in bits 32-63 (so skipping a subtree is O(1)); for the end entry: number
+ * of items of the container in bits 32-63. Values are decoded from the bytes by the
+ * materialization methods, the document bytes are referenced, not copied.
+ */
+final class QJsonTape {
+    static final int KIND_OBJECT = 1;
+    static final int KIND_ARRAY = 2;
+    static final int KIND_END = 3;
+    static final int KIND_NAME = 4;
+    static final int KIND_STRING = 5;
+    static final int KIND_NUMBER = 6;
+    static final int KIND_TRUE = 7;
+    static final int KIND_FALSE = 8;
+    static final int KIND_NULL = 9;
+    static final int KIND_ESCAPED = 16; // flag for KIND_NAME and KIND_STRING with '\\' inside
+
+    private static final int KIND_MASK = 31;
+    private static final int LENGTH_SHIFT = 5;
+    private static final int LENGTH_UNKNOWN = (1 << 27) - 1; // longer strings are rescanned on access
+
+    private static final int EXPECT_FIRST = 0; // same states as QJsonReader has
+    private static final int EXPECT_NEXT = 1;
+    private static final int EXPECT_ITEM = 2;
+    private static final int EXPECT_VALUE = 3;
+
+    final byte[] src;
+    private long[] tape;
+    private int size;
+    private boolean escaped; // last skipString() met '\\'
+
+    private QJsonTape(byte[] src) {
+        this.src = src;
+    }
+
+    /**
+     * index json[off..off+len), the array must not be changed while the tape is in use
+     */
+    static QJsonTape build(byte[] json, int off, int len) throws IOException {
+        QJsonTape t = new QJsonTape(json);
+        t.tape = new long[Math.max(64, len >> 4)]; // guess: a token per 16 bytes
+        t.scan(off, off + len);
+        if (t.size < t.tape.length) t.tape = Arrays.copyOf(t.tape, t.size);
+        return (t);
+    }
+
+    int kind(int index) {
+        return ((int) tape[index] & KIND_MASK);
+    }
+
+    // tape index right after token or subtree at index
+    int next(int index) {
+        long e = tape[index];
+        int kind = (int) e & KIND_MASK;
+        if (kind == KIND_OBJECT || kind == KIND_ARRAY) return ((int) (e >>> 32) + 1);
+        return (index + 1);
+    }
+
+    // number of items in container which start entry is at index
+    int count(int index) {
+        return ((int) (tape[(int) (tape[index] >>> 32)] >>> 32));
+    }
+
+    private int offset(int index) {
+        return ((int) (tape[index] >>> 32));
+    }
+
+    private int length(int index) {
+        int length = (int) tape[index] >>> LENGTH_SHIFT;
+        if (length != LENGTH_UNKNOWN) return (length);
+        try {
+            return (skipString(offset(index), src.length) - 1 - offset(index));
+        } catch (IOException ioe) {
+            throw (new IllegalStateException(ioe)); // never, checked by scan()
+        }
+    }
+
+    /**
+     * @return String, Long, Double, Boolean or null for entry at index of scalar kind
+     */
+    Object value(int index) {
+        switch (kind(index)) {
+            case KIND_NAME:
+            case KIND_STRING:
+                return (new String(src, offset(index), length(index), StandardCharsets.UTF_8));
+            case KIND_NAME | KIND_ESCAPED:
+            case KIND_STRING | KIND_ESCAPED:
+                return (unescape(offset(index), length(index)));
+            case KIND_NUMBER:
+                try {
+                    return (QJson.literal2value(new String(src, offset(index), length(index), StandardCharsets.ISO_8859_1)));
+                } catch (IOException ioe) {
+                    throw (new IllegalStateException(ioe)); // never, checked by scan()
+                }
+            case KIND_TRUE:
+                return (Boolean.TRUE);
+            case KIND_FALSE:
+                return (Boolean.FALSE);
+            default:
+                return (null);
+        }
+    }
+
+    /**
+     * compare name entry at index with name in UTF-8 (without escapes), nothing is created
+     */
+    boolean nameEquals(int index, byte[] name) {
+        long e = tape[index];
+        if (((int) e & KIND_ESCAPED) != 0) return (Arrays.equals(((String) value(index)).getBytes(StandardCharsets.UTF_8), name));
+        int length = length(index);
+        if (length != name.length) return (false);
+        int off = (int) (e >>> 32);
+        for (int i = 0; i < length; i++) {
+            if (src[off + i] != name[i]) return (false);
+        }
+        return (true);
+    }
+
+    private String unescape(int off, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        int end = off + length;
+        int run = off;
+        for (int p = off; p < end; p++) {
+            if (src[p] != '\\') continue;
+            sb.append(new String(src, run, p - run, StandardCharsets.UTF_8));
+            try {
+                sb.append((char) QJsonTokenizer.unescape(src[++p]));
+            } catch (IOException ioe) {
+                throw (new IllegalStateException(ioe)); // never, checked by scan()
+            }
+            run = p + 1;
+        }
+        sb.append(new String(src, run, end - run, StandardCharsets.UTF_8));
+        return (sb.toString());
+    }
+
+    private void scan(int p, int end) throws IOException {
+        byte[] s = src;
+        int[] stack = new int[32]; // tape indexes of open containers
+        int[] counts = new int[32];
+        int depth = 0;
+        int expect = EXPECT_FIRST;
+        p = skipSpace(p, end);
+        int ch = charAt(p, end);
+        if (ch != '{' && ch != '[') throw (QJson.parseException(QJson.CONTEXT_GLOBAL, ch));
+        stack[depth] = size;
+        counts[depth++] = 0;
+        add(ch == '{' ? KIND_OBJECT : KIND_ARRAY, 0, 0);
+        p++;
+        while (depth > 0) {
+            p = skipSpace(p, end);
+            ch = charAt(p, end);
+            boolean object = kind(stack[depth - 1]) == KIND_OBJECT;
+            if (expect == EXPECT_NEXT || expect == EXPECT_FIRST || expect == EXPECT_ITEM) {
+                if (ch == (object ? '}' : ']') || (ch == -1 && object && expect == EXPECT_NEXT)) { // end of input closes objects
+                    int start = stack[--depth];
+                    tape[start] |= (long) size << 32; // skip pointer
+                    add(KIND_END, 0, 0);
+                    tape[size - 1] |= (long) counts[depth] << 32;
+                    expect = EXPECT_NEXT;
+                    p++;
+                    continue;
+                }
+                if (expect == EXPECT_NEXT) {
+                    if (ch != ',') throw (QJson.parseException(object ? QJson.CONTEXT_OBJECT : QJson.CONTEXT_ARRAY, ch));
+                    expect = EXPECT_ITEM;
+                    p++;
+                    continue;
+                }
+                if (object) {
+                    if (ch != '"') throw (QJson.parseException(QJson.CONTEXT_OBJECT, ch));
+                    int close = skipString(p + 1, end);
+                    if (close < 0) throw (QJson.parseException(QJson.CONTEXT_NAME, -1)); // end of input inside name
+                    if (close == p + 2) throw (QJson.parseException(QJson.CONTEXT_NAME, '"')); // empty name
+                    addString(KIND_NAME, p + 1, close - 1);
+                    p = skipSpace(close, end);
+                    ch = charAt(p, end);
+                    if (ch != ':') throw (QJson.parseException(QJson.CONTEXT_NAME_AFTER, ch));
+                    expect = EXPECT_VALUE;
+                    p++;
+                    continue;
+                }
+            }
+            // value
+            counts[depth - 1]++;
+            expect = EXPECT_NEXT;
+            if (ch == '{' || ch == '[') {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    counts = Arrays.copyOf(counts, depth * 2);
+                }
+                stack[depth] = size;
+                counts[depth++] = 0;
+                add(ch == '{' ? KIND_OBJECT : KIND_ARRAY, 0, 0);
+                expect = EXPECT_FIRST;
+                p++;
+            } else if (ch == '"') {
+                int close = skipString(p + 1, end);
+                if (close < 0) close = end + 1; // unterminated, reported as end of input in container
+                addString(KIND_STRING, p + 1, close - 1);
+                p = close;
+            } else {
+                if (!QJsonTokenizer.isCharInClass(ch, QJsonTokenizer.CC_LITERAL)) {
+                    throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, ch));
+                }
+                int start = p;
+                while (++p < end) {
+                    int b = s[p];
+                    if (b < 0) throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, charAt(p, end)));
+                    int cc = QJsonTokenizer.CHAR_CLASS[b];
+                    if ((cc & QJsonTokenizer.CC_LITERAL_STOP) != 0) break;
+                    if ((cc & QJsonTokenizer.CC_LITERAL) == 0) throw (QJson.parseException(QJson.CONTEXT_VALUE_LITERAL, b));
+                }
+                add(literalKind(start, p), start, p - start);
+            }
+        }
+    }
+
+    private int literalKind(int start, int end) throws IOException {
+        if (isLiteral(start, end, QJson.LITERAL_TRUE)) return (KIND_TRUE);
+        if (isLiteral(start, end, QJson.LITERAL_FALSE)) return (KIND_FALSE);
+        if (isLiteral(start, end, QJson.LITERAL_NULL)) return (KIND_NULL);
+        if (!QJsonNumber.isPlain(src, start, end)) {
+            QJson.literal2valueSlow(new String(src, start, end - start, StandardCharsets.ISO_8859_1)); // "1f" or exception
+        }
+        return (KIND_NUMBER);
+    }
+
+    private boolean isLiteral(int start, int end, String literal) {
+        if (end - start != literal.length()) return (false);
+        for (int i = start; i < end; i++) {
+            if (src[i] != literal.charAt(i - start)) return (false);
+        }
+        return (true);
+    }
+
+    // index after closing '"' of string starting at p, -1 if input ended; checks escapes
+    private int skipString(int p, int end) throws IOException {
+        byte[] s = src;
+        escaped = false;
+        while (p < end) {
+            byte b = s[p++];
+            if (b == '"') return (p);
+            if (b == '\\') {
+                escaped = true;
+                QJsonTokenizer.unescape(charAt(p++, end));
+            }
+        }
+        return (-1);
+    }
+
+    private int skipSpace(int p, int end) {
+        byte[] s = src;
+        while (p < end) {
+            byte b = s[p];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') break;
+            p++;
+        }
+        return (p);
+    }
+
+    // character at p for syntax checks and error messages, -1 at the end of input
+    private int charAt(int p, int end) {
+        if (p >= end) return (-1);
+        int b = src[p];
+        if (b >= 0) return (b);
+        return (new String(src, p, Math.min(4, end - p), StandardCharsets.UTF_8).charAt(0));
+    }
+
+    private void addString(int kind, int off, int end) {
+        add(escaped ? kind | KIND_ESCAPED : kind, off, Math.min(end - off, LENGTH_UNKNOWN));
+    }
+
+    private void add(int kind, int off, int length) {
+        if (size == tape.length) tape = Arrays.copyOf(tape, size + (size >> 1));
+        tape[size++] = ((long) off << 32) | ((long) length << LENGTH_SHIFT) | kind;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+
+/**
+ * Character source of the QJson parser.
+ * <p>
+ * Works like the static readJString/readJLiteral helpers of {@link QJson} (every method returns
+ * the next character after the token, or -1 at the end of input), but implementations read the
+ * input in bulk windows and test characters with {@link #CHAR_CLASS} instead of String.indexOf().
+ */
+abstract class QJsonTokenizer {
+    // character classes, one bit for each SZ_CLASS_* string of QJson
+    static final int CC_SPACE = 1; // QJson.SZ_CLASS_SPACE_ANY
+    static final int CC_LITERAL = 2; // QJson.SZ_CLASS_LITERAL
+    static final int CC_LITERAL_STOP = 4; // QJson.SZ_CLASS_LITERAL_STOP
+    static final int CC_STRING_STOP = 8; // '"' and '\\', end of escape-free run inside string
+    static final byte[] CHAR_CLASS = new byte[128];
+
+    static {
+        mark(QJson.SZ_CLASS_SPACE_ANY, CC_SPACE);
+        mark(QJson.SZ_CLASS_LITERAL, CC_LITERAL);
+        mark(QJson.SZ_CLASS_LITERAL_STOP, CC_LITERAL_STOP);
+        mark("\"\\", CC_STRING_STOP);
+    }
+
+    private static void mark(String chars, int char_class) {
+        for (int i = 0; i < chars.length(); i++) {
+            CHAR_CLASS[chars.charAt(i)] |= char_class;
+        }
+    }
+
+    static boolean isCharInClass(int c, int char_class) {
+        return (c >= 0 && c < 128 && (CHAR_CLASS[c] & char_class) != 0);
+    }
+
+    // token buffer shared by all tokens of one parse
+    final StringBuilder token = new StringBuilder();
+
+    /**
+     * @return next character or -1 at the end of input
+     */
+    abstract int read() throws IOException;
+
+    /**
+     * @return next character which is not from SZ_CLASS_SPACE_ANY
+     */
+    abstract int skipSpaceAny() throws IOException;
+
+    /**
+     * Append string content up to the closing quote (opening quote already read) to sb,
+     * escapes resolved as in {@link QJson#readJString(java.io.Reader, StringBuffer)}.
+     *
+     * @return '"' or -1
+     */
+    abstract int readString(StringBuilder sb) throws IOException;
+
+    /**
+     * Skip string content up to the closing quote (opening quote already read) without decoding
+     * it, escapes are checked as readString() checks them.
+     *
+     * @return length of the content in input units (bytes or chars), -1 at the end of input
+     */
+    abstract int skipString() throws IOException;
+
+    /**
+     * Append literal characters to sb until a character from SZ_CLASS_LITERAL_STOP.
+     *
+     * @return the stop character or -1
+     */
+    abstract int readLiteral(StringBuilder sb) throws IOException;
+
+    // String.hashCode() of token, without making String
+    static int hash(CharSequence token) {
+        int h = 0;
+        for (int i = 0, length = token.length(); i < length; i++) {
+            h = 31 * h + token.charAt(i);
+        }
+        return (h);
+    }
+
+    static int unescape(int c) throws IOException {
+        switch (c) {
+            case 'n':
+                return ('\n');
+            case 'r':
+                return ('\r');
+            case 't':
+                return ('\t');
+            case '\\':
+                return ('\\');
+            case '"':
+                return ('\"');
+            default:
+                throw (QJson.parseException(QJson.CONTEXT_VALUE_STRING, c));
+        }
+    }
+}
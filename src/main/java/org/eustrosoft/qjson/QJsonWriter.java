@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming JSON writer: writes compact json straight to a Writer or OutputStream (UTF-8)
+ * without building a QJson tree. Memory used depends only on nesting depth.
+ * <p>
+ * Strings are escaped and literals are written like QJson.writeJSONString() does.
+ * Calls are checked against nesting, misuse (value without name inside object, name inside array,
+ * unbalanced end*(), second top-level value) throws IllegalStateException at once.
+ * <pre>
+ * QJsonWriter w = new QJsonWriter(out);
+ * w.beginObject().name("id").value(42).name("tags").beginArray().value("a").value("b").endArray().endObject();
+ * w.flush();
+ * </pre>
+ */
+public class QJsonWriter implements Closeable, Flushable {
+    static final int BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private boolean[] objects = new boolean[32]; // container stack, true for object
+    private int depth;
+    private boolean first = true; // nothing written yet in current container
+    private boolean named; // inside object : name written, value expected
+    private boolean done; // top-level object or array is closed
+
+    public QJsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * UTF-8 output
+     */
+    public QJsonWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public QJsonWriter beginObject() throws IOException {
+        beforeValue(true);
+        write('{');
+        push(true);
+        return (this);
+    }
+
+    public QJsonWriter endObject() throws IOException {
+        if (depth == 0 || !objects[depth - 1] || named) throw (misuse("endObject"));
+        write('}');
+        pop();
+        return (this);
+    }
+
+    public QJsonWriter beginArray() throws IOException {
+        beforeValue(true);
+        write('[');
+        push(false);
+        return (this);
+    }
+
+    public QJsonWriter endArray() throws IOException {
+        if (depth == 0 || objects[depth - 1]) throw (misuse("endArray"));
+        write(']');
+        pop();
+        return (this);
+    }
+
+    public QJsonWriter name(String name) throws IOException {
+        if (depth == 0 || !objects[depth - 1] || named || name == null) throw (misuse("name"));
+        if (!first) write(',');
+        first = false;
+        writeString(name);
+        write(':');
+        named = true;
+        return (this);
+    }
+
+    public QJsonWriter value(String value) throws IOException {
+        if (value == null) return (nullValue());
+        beforeValue(false);
+        writeString(value);
+        return (this);
+    }
+
+    public QJsonWriter value(long value) throws IOException {
+        beforeValue(false);
+        writeLiteral(Long.toString(value));
+        return (this);
+    }
+
+    public QJsonWriter value(double value) throws IOException {
+        beforeValue(false);
+        writeLiteral(Double.toString(value));
+        return (this);
+    }
+
+    public QJsonWriter value(boolean value) throws IOException {
+        beforeValue(false);
+        writeLiteral(value ? QJson.LITERAL_TRUE : QJson.LITERAL_FALSE);
+        return (this);
+    }
+
+    public QJsonWriter nullValue() throws IOException {
+        beforeValue(false);
+        writeLiteral(QJson.LITERAL_NULL);
+        return (this);
+    }
+
+    /**
+     * write value of any type QJson can hold, converted like QJson.writeJSONString() does:
+     * QJson as object or array, numbers and Boolean as literals, BigDecimal and other objects as strings
+     */
+    public QJsonWriter value(Object value) throws IOException {
+        if (value == null) return (nullValue());
+        if (value instanceof String) return (value((String) value));
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return (value(((Number) value).longValue()));
+        }
+        if (value instanceof Double) return (value(((Double) value).doubleValue()));
+        if (value instanceof QJson) return (value((QJson) value));
+        if (value instanceof Boolean) return (value(((Boolean) value).booleanValue()));
+        if (value instanceof BigDecimal) return (value(value.toString()));
+        return (value(value.toString())); // any other data types converted to string
+    }
+
+    public QJsonWriter value(QJson json) throws IOException {
+        if (json == null || json.getType() == QJson.QJSON_TYPE_NULL) return (nullValue());
+        boolean object = json.getType() != QJson.QJSON_TYPE_ARRAY;
+        if (object) beginObject();
+        else beginArray();
+        int count = json.size();
+        Object packed = json.packedItems(); // numbers of numeric array, written without boxing
+        for (int i = 0; i < count; i++) {
+            if (object) name(String.valueOf(json.getItemName(i)));
+            if (packed instanceof long[]) value(((long[]) packed)[i]);
+            else if (packed instanceof double[]) value(((double[]) packed)[i]);
+            else value(json.getItem(i));
+        }
+        if (object) endObject();
+        else endArray();
+        return (this);
+    }
+
+    /**
+     * @return true if top-level object or array is written completely
+     */
+    public boolean isComplete() {
+        return (done);
+    }
+
+    /**
+     * end the complete top-level value with a newline, so the next one may be written (json lines,
+     * see {@link QJsonLinesWriter})
+     */
+    QJsonWriter endLine() throws IOException {
+        if (!done) throw (misuse("endLine"));
+        write('\n');
+        done = false;
+        first = true;
+        return (this);
+    }
+
+    // json written by other means (JsonParser), as the next top-level value
+    QJsonWriter rawValue(StringBuilder json) throws IOException {
+        if (depth != 0 || done) throw (misuse("top-level value"));
+        for (int start = 0, length = json.length(); start < length; ) {
+            if (pos == buf.length) flushBuffer();
+            int n = Math.min(length - start, buf.length - pos);
+            json.getChars(start, start + n, buf, pos);
+            pos += n;
+            start += n;
+        }
+        done = true;
+        return (this);
+    }
+
+    private void beforeValue(boolean container) throws IOException {
+        if (depth == 0) {
+            if (done || !container) throw (misuse("top-level value"));
+            return;
+        }
+        if (objects[depth - 1]) {
+            if (!named) throw (misuse("value without name"));
+            named = false;
+            return;
+        }
+        if (!first) write(',');
+        first = false;
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            boolean[] a = new boolean[depth * 2];
+            System.arraycopy(objects, 0, a, 0, depth);
+            objects = a;
+        }
+        objects[depth++] = object;
+        first = true;
+    }
+
+    private void pop() {
+        depth--;
+        first = false;
+        if (depth == 0) done = true;
+    }
+
+    private IllegalStateException misuse(String what) {
+        return (new IllegalStateException("QJsonWriter: unexpected " + what + " at depth " + depth));
+    }
+
+    private void write(char c) throws IOException {
+        if (pos == buf.length) flushBuffer();
+        buf[pos++] = c;
+    }
+
+    private void writeLiteral(String literal) throws IOException {
+        int length = literal.length();
+        if (buf.length - pos < length) flushBuffer();
+        if (length > buf.length) {
+            out.write(literal);
+            return;
+        }
+        literal.getChars(0, length, buf, pos);
+        pos += length;
+    }
+
+    // same escapes as QJson.write_jstr()
+    private void writeString(String str) throws IOException {
+        write('"');
+        int length = str.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            String escape;
+            switch (c) {
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                default:
+                    continue;
+            }
+            writeRun(str, start, i);
+            writeLiteral(escape);
+            start = i + 1;
+        }
+        writeRun(str, start, length);
+        write('"');
+    }
+
+    private void writeRun(String str, int start, int end) throws IOException {
+        while (start < end) {
+            if (pos == buf.length) flushBuffer();
+            int n = Math.min(end - start, buf.length - pos);
+            str.getChars(start, start + n, buf, pos);
+            pos += n;
+            start += n;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * flush and close output, throws IllegalStateException if some object or array is not closed
+     */
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+        if (depth != 0) throw (misuse("close"));
+    }
+}
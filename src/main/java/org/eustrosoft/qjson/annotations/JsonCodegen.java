@@ -0,0 +1,16 @@
+package org.eustrosoft.qjson.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+
+/**
+ * Class to get a generated reader and writer (Name_JsonCodec next to it) from
+ * org.eustrosoft.qjson.processor.JsonCodegenProcessor, JsonParser uses it instead of reflection.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({TYPE})
+public @interface JsonCodegen {
+}
@@ -0,0 +1,435 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates Name_JsonCodec (a org.eustrosoft.qjson.JsonCodec) for every class marked with
+ * {@link org.eustrosoft.qjson.annotations.JsonCodegen}: straight-line binding and serialization
+ * of the same properties JsonParser finds by reflection (fields of the class and its superclasses
+ * without JsonIgnore ones, in the same order), JsonNotNull of the class is honored.
+ * <p>
+ * The processor is optional and is not registered as a service, enable it for the sources
+ * with annotated classes: javac -processor org.eustrosoft.qjson.processor.JsonCodegenProcessor
+ * (annotationProcessors of maven-compiler-plugin). Generated code accesses fields directly, so
+ * they must not be private, unless the class has getName()/isName() and setName() for them.
+ * Final fields are written but not bound. The class needs a non-private constructor without
+ * parameters and, if nested, to be static.
+ */
+@SupportedAnnotationTypes(JsonCodegenProcessor.CODEGEN)
+public class JsonCodegenProcessor extends AbstractProcessor {
+    static final String CODEGEN = "org.eustrosoft.qjson.annotations.JsonCodegen";
+    private static final String IGNORE = "org.eustrosoft.qjson.annotations.JsonIgnore";
+    private static final String NOT_NULL = "org.eustrosoft.qjson.annotations.JsonNotNull";
+    private static final String SUFFIX = "_JsonCodec"; // JsonCodec.SUFFIX
+    private static final String READER = "org.eustrosoft.qjson.QJsonReader";
+
+    // property kinds, as JsonBindPlan has them
+    private static final int KIND_OTHER = 0;
+    private static final int KIND_NUMBER = 1;
+    private static final int KIND_COLLECTION = 2;
+    private static final int KIND_MAP = 3;
+    private static final int KIND_ENUM = 4;
+    private static final int KIND_OBJECT = 5;
+    private static final int KIND_PRIMITIVE = 6;
+    private static final int KIND_ARRAY = 7;
+
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        TypeElement codegen = elements.getTypeElement(CODEGEN);
+        if (codegen == null) {
+            return false;
+        }
+        for (Element element : round.getElementsAnnotatedWith(codegen)) {
+            try {
+                generate(element);
+            } catch (CodegenException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, ex.getMessage(), ex.element);
+            } catch (IOException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can not write codec: " + ex, element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(Element element) throws CodegenException, IOException {
+        if (element.getKind() != ElementKind.CLASS) {
+            throw new CodegenException(element, "@JsonCodegen class expected");
+        }
+        TypeElement type = (TypeElement) element;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)
+                || (type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC))) {
+            throw new CodegenException(type, "@JsonCodegen class must be concrete, not private and static if nested");
+        }
+        if (!hasConstructor(type)) {
+            throw new CodegenException(type, "@JsonCodegen class needs a non-private constructor without parameters");
+        }
+        PackageElement pkg = elements.getPackageOf(type);
+        String packageName = pkg.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String codecName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String typeName = types.erasure(type.asType()).toString();
+
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement cur = type; cur != null; cur = superclass(cur)) {
+            for (VariableElement field : ElementFilter.fieldsIn(cur.getEnclosedElements())) {
+                if (hasAnnotation(field, IGNORE)) {
+                    continue;
+                }
+                if (!names.add(field.getSimpleName().toString())) {
+                    throw new CodegenException(field, "hides a field of the same name, @JsonIgnore one of them");
+                }
+                properties.add(property(type, pkg, field));
+            }
+        }
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? codecName : packageName + "." + codecName, type);
+        try (Writer writer = file.openWriter(); PrintWriter out = new PrintWriter(writer)) {
+            write(out, packageName, codecName, typeName, hasAnnotation(type, NOT_NULL), properties);
+        }
+    }
+
+    private void write(PrintWriter out, String packageName, String codecName, String typeName, boolean notNull,
+                       List<Property> properties) {
+        out.println("// generated by " + getClass().getName() + " from " + typeName + ", do not edit");
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+        }
+        out.println();
+        out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("public final class " + codecName + " extends org.eustrosoft.qjson.JsonCodec<" + typeName + "> {");
+        out.println();
+        StringBuilder names = new StringBuilder();
+        for (Property property : properties) {
+            names.append(", \"").append(property.name).append('"');
+        }
+        out.println("    public " + codecName + "() {");
+        out.println("        super(" + notNull + names + ");");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + typeName + " newInstance() {");
+        out.println("        return new " + typeName + "();");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    protected void readField(" + READER + " reader, int token, " + typeName + " obj, int index)");
+        out.println("            throws java.io.IOException {");
+        out.println("        switch (index) {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.println("            case " + i + ":");
+            out.println("                " + properties.get(i).read());
+            out.println("                break;");
+        }
+        out.println("            default:");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    protected void readMissing(" + typeName + " obj, int index) {");
+        out.println("        switch (index) {");
+        for (int i = 0; i < properties.size(); i++) {
+            String missing = properties.get(i).missing();
+            if (missing != null) {
+                out.println("            case " + i + ":");
+                out.println("                " + missing);
+                out.println("                break;");
+            }
+        }
+        out.println("            default:");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    protected void writeFields(" + typeName + " obj, java.lang.Appendable out) throws java.io.IOException {");
+        out.println("        int written = 0;");
+        for (Property property : properties) {
+            out.println("        written = " + property.write() + ";");
+        }
+        out.println("    }");
+        out.println("}");
+    }
+
+    private Property property(TypeElement type, PackageElement pkg, VariableElement field) throws CodegenException {
+        Property property = new Property();
+        TypeMirror fieldType = field.asType();
+        property.name = field.getSimpleName().toString();
+        property.type = types.erasure(fieldType).toString();
+        property.primitive = fieldType.getKind();
+        property.kind = kindOf(fieldType);
+        property.elementType = property.kind == KIND_COLLECTION ? elementType(fieldType) : "null";
+        boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+        boolean isFinal = field.getModifiers().contains(Modifier.FINAL);
+        if (isAccessible(field, pkg)) {
+            String target = isStatic ? ((TypeElement) field.getEnclosingElement()).getQualifiedName().toString() : "obj";
+            property.get = target + "." + property.name;
+            property.set = isFinal ? null : target + "." + property.name + " = ";
+            property.setEnd = ";";
+            return property;
+        }
+        String suffix = Character.toUpperCase(property.name.charAt(0)) + property.name.substring(1);
+        ExecutableElement getter = isStatic ? null : method(type, pkg, "get" + suffix, fieldType, null);
+        if (getter == null && !isStatic && property.primitive == TypeKind.BOOLEAN) {
+            getter = method(type, pkg, "is" + suffix, fieldType, null);
+        }
+        ExecutableElement setter = isStatic ? null : method(type, pkg, "set" + suffix, types.getNoType(TypeKind.VOID), fieldType);
+        if (getter == null || (setter == null && !isFinal)) {
+            throw new CodegenException(field, "field is not accessible from generated code: make it not private,"
+                    + " add get/set methods or mark it @JsonIgnore");
+        }
+        property.get = "obj." + getter.getSimpleName() + "()";
+        property.set = setter == null ? null : "obj." + setter.getSimpleName() + "(";
+        property.setEnd = ");";
+        return property;
+    }
+
+    private int kindOf(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return KIND_PRIMITIVE;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeKind component = ((ArrayType) type).getComponentType().getKind();
+            if (component == TypeKind.INT || component == TypeKind.LONG || component == TypeKind.DOUBLE) {
+                return KIND_ARRAY;
+            }
+        }
+        TypeMirror erasure = types.erasure(type);
+        if (isSubtype(erasure, "java.lang.Number")) {
+            return KIND_NUMBER;
+        }
+        if (isSubtype(erasure, "java.util.Collection")) {
+            return KIND_COLLECTION;
+        }
+        if (isSubtype(erasure, "java.util.Map")) {
+            return KIND_MAP;
+        }
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            Element element = types.asElement(erasure);
+            if (element.getKind() == ElementKind.ENUM) {
+                return KIND_ENUM;
+            }
+            if (element.getSimpleName().contentEquals("Object")) {
+                return KIND_OBJECT;
+            }
+        }
+        return KIND_OTHER;
+    }
+
+    // class literal of the first type argument as Field.getGenericType() reports it, "null" if unknown
+    private String elementType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return "null";
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        if (arguments.isEmpty()) {
+            return "null";
+        }
+        TypeMirror argument = arguments.get(0);
+        TypeMirror component = argument;
+        while (component.getKind() == TypeKind.ARRAY) {
+            component = ((ArrayType) component).getComponentType();
+        }
+        if (component.getKind() != TypeKind.DECLARED && !component.getKind().isPrimitive()) {
+            return "null"; // wildcard, type variable
+        }
+        return types.erasure(argument) + ".class";
+    }
+
+    private boolean isSubtype(TypeMirror type, String name) {
+        TypeElement element = elements.getTypeElement(name);
+        return element != null && types.isAssignable(type, types.erasure(element.asType()));
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+
+    private boolean hasConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // non-static method of type with given name, return type and single parameter (none if null)
+    private ExecutableElement method(TypeElement type, PackageElement pkg, String name, TypeMirror returns,
+                                     TypeMirror parameter) {
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (!method.getSimpleName().contentEquals(name) || method.getModifiers().contains(Modifier.STATIC)
+                    || !isAccessible(method, pkg) || !types.isSameType(method.getReturnType(), returns)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (parameter == null ? parameters.isEmpty()
+                    : parameters.size() == 1 && types.isSameType(parameters.get(0).asType(), parameter)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccessible(Element member, PackageElement pkg) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) || elements.getPackageOf(member).equals(pkg);
+    }
+
+    private static boolean hasAnnotation(Element element, String name) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // generated statements of one property
+    private static final class Property {
+        String name;
+        String type; // erasure, as in source
+        TypeKind primitive;
+        int kind;
+        String elementType; // class literal or "null"
+        String get; // expression of the value
+        String set; // start of assignment, null if read only
+        String setEnd;
+
+        String read() {
+            if (set == null) {
+                return "skipValue(reader, token);";
+            }
+            switch (kind) {
+                case KIND_NUMBER:
+                    return set("(" + type + ") readNumber(reader, token, " + type + ".class, \"" + name + "\")");
+                case KIND_PRIMITIVE:
+                    switch (primitive) {
+                        case BOOLEAN:
+                            return set("readBoolean(reader, token, " + get + ")");
+                        case DOUBLE:
+                            return set("readDouble(reader, token, " + get + ")");
+                        case FLOAT:
+                            return set("readFloat(reader, token, " + get + ")");
+                        case CHAR:
+                            return "skipValue(reader, token);";
+                        default:
+                            return set("(" + type + ") readLong(reader, token, " + type + ".class, " + get + ")");
+                    }
+                case KIND_COLLECTION:
+                    return set("(" + type + ") readCollection(reader, token, " + type + ".class, " + elementType + ")");
+                case KIND_MAP:
+                    return set("(" + type + ") readMap(reader, token, " + type + ".class)");
+                case KIND_ARRAY:
+                    return set("(" + type + ") readArray(reader, token, " + type + ".class, " + get + ")");
+                default:
+                    return set("(" + type + ") readObject(reader, token, " + type + ".class, " + get + ")");
+            }
+        }
+
+        String missing() {
+            if (set == null) {
+                return null;
+            }
+            switch (kind) {
+                case KIND_NUMBER:
+                    return set("null");
+                case KIND_COLLECTION:
+                    return set("(" + type + ") newCollection(" + type + ".class)");
+                case KIND_MAP:
+                    return set("(" + type + ") newMap(" + type + ".class)");
+                default:
+                    return null;
+            }
+        }
+
+        String write() {
+            String args = "(out, written, \"\\\"" + name + "\\\":\", ";
+            switch (kind) {
+                case KIND_ENUM:
+                    return "enumValue" + args + get + ")";
+                case KIND_COLLECTION:
+                    return "collection" + args + get + ")";
+                case KIND_OBJECT:
+                    return "object" + args + get + ")";
+                case KIND_ARRAY:
+                    return "array" + args + get + ")";
+                case KIND_PRIMITIVE:
+                    switch (primitive) {
+                        case LONG:
+                        case INT:
+                        case SHORT:
+                        case BOOLEAN:
+                            return "value" + args + get + ")";
+                        default:
+                            return "value" + args + "(java.lang.Object) " + get + ")"; // boxed, as reflection gets it
+                    }
+                default:
+                    return "value" + args + "(java.lang.Object) " + get + ")";
+            }
+        }
+
+        private String set(String value) {
+            return set + value + setEnd;
+        }
+    }
+
+    private static final class CodegenException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final Element element;
+
+        CodegenException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
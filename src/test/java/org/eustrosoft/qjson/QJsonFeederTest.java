@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.eustrosoft.qjson.TestTrees.assertSameTree;
+import static org.eustrosoft.qjson.TestTrees.parseBytes;
+import static org.eustrosoft.qjson.TestTrees.utf8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * QJsonFeeder against parseJSONBytes() over every way the input can be cut into chunks
+ */
+class QJsonFeederTest {
+    private static final String[] CORPUS = {
+            "{}",
+            "[]",
+            "{\"a\":1,\"b\":-2.5e-3,\"c\":true,\"d\":false,\"e\":null,\"f\":\"text\"}",
+            "[1,2,3,-4,9223372036854775807,0]",
+            "[1.5,2.25,-3e10,4E-2]",
+            "{\"esc\":\"q\\\"b\\\\s\\nt\\tr\\r\\\"\\\\\",\"k\\\"ey\":\"\\\\\",\"\\n\":\"\\\"\"}",
+            "{\"ru\":\"\u043f\u0440\u0438\u0432\u0435\u0442\",\"\u0438\u043c\u044f\":\"\u20ac\u00e9\u00fc\",\"emoji\":\"a\ud83d\ude00b\ud83c\udf89\"}",
+            " \n\t{ \"a\" : [ 1 , { \"b\" : [ ] } , \"x\" ] , \"c\" : { } } ",
+            "{\"a\":{\"b\":{\"c\":{\"d\":[[[[\"deep\"]]]]}}}}",
+            "[{\"id\":1,\"name\":\"x\"},{\"id\":2,\"name\":\"y\"},{\"name\":\"z\",\"id\":3}]",
+            "{\"a\":[1,2,],\"b\":3,}",
+    };
+
+    // documents with many records: buffer compaction, shapes, numbers cut at every digit
+    private static String records(int n) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i * 7919L).append(",\"price\":").append(i * 0.25)
+                    .append(",\"name\":\"r\\\"").append(i).append("\u00e9\u20ac\ud83d\ude00\\\\\",\"tags\":[")
+                    .append(i).append(',').append(-i).append("],\"ok\":").append(i % 2 == 0).append('}');
+        }
+        return (sb.append(']').toString());
+    }
+
+    private static List<byte[]> corpus() {
+        List<byte[]> docs = new ArrayList<byte[]>();
+        for (String doc : CORPUS) {
+            docs.add(utf8(doc));
+        }
+        docs.add(utf8(records(300)));
+        return (docs);
+    }
+
+    // parse() after every chunk of size, endOfInput() after the last one
+    private static QJson feed(byte[] json, int size) throws IOException {
+        QJsonFeeder feeder = new QJsonFeeder();
+        QJson result = null;
+        for (int off = 0; off < json.length && result == null; off += size) {
+            feeder.feed(json, off, Math.min(size, json.length - off));
+            result = feeder.parse();
+        }
+        if (result == null) result = feeder.endOfInput().parse();
+        return (result);
+    }
+
+    private static void assertFedAs(byte[] json, int size) throws IOException {
+        assertSameTree(parseBytes(json), feed(json, size));
+    }
+
+    @Test
+    void oneByteChunks() throws IOException {
+        for (byte[] json : corpus()) {
+            assertFedAs(json, 1);
+        }
+    }
+
+    @Test
+    void threeByteChunks() throws IOException {
+        for (byte[] json : corpus()) {
+            assertFedAs(json, 3);
+        }
+    }
+
+    @Test
+    void chunksOfOtherSizes() throws IOException {
+        byte[] json = utf8(records(300));
+        for (int size : new int[]{2, 5, 7, 64, 1000, 8191, 8192, 8193, json.length}) {
+            assertFedAs(json, size);
+        }
+    }
+
+    // two chunks cut at every byte: every escape and every UTF-8 sequence is cut at each of its bytes
+    @Test
+    void everyCut() throws IOException {
+        for (String doc : CORPUS) {
+            byte[] json = utf8(doc);
+            QJson expected = parseBytes(json);
+            for (int cut = 1; cut < json.length; cut++) {
+                QJsonFeeder feeder = new QJsonFeeder();
+                feeder.feed(json, 0, cut);
+                QJson result = feeder.parse();
+                if (result == null) {
+                    feeder.feed(json, cut, json.length - cut);
+                    result = feeder.parse();
+                }
+                if (result == null) result = feeder.endOfInput().parse();
+                assertSameTree(expected, result);
+            }
+        }
+    }
+
+    @Test
+    void splitEscapes() throws IOException {
+        String[][] cases = {
+                {"{\"a\":\"x\\", "\"y\"}"},
+                {"{\"a\":\"x\\\\", "\"}"},
+                {"{\"a\":\"\\", "n\"}"},
+                {"{\"a\":\"\\n\\", "t\"}"},
+                {"[\"\\", "\"\"]"},
+                {"{\"a\":[\"\\\\\\", "\"\"]}"},
+                {"{\"k\\", "\"ey\":1}"},
+        };
+        for (String[] c : cases) {
+            byte[] json = utf8(c[0] + c[1]);
+            QJsonFeeder feeder = new QJsonFeeder();
+            feeder.feed(utf8(c[0]), 0, utf8(c[0]).length);
+            assertNull(feeder.parse(), c[0]);
+            feeder.feed(utf8(c[1]), 0, utf8(c[1]).length);
+            assertSameTree(parseBytes(json), feeder.parse());
+        }
+    }
+
+    @Test
+    void splitMultiByteCharacters() throws IOException {
+        // 2, 3 and 4 byte sequences in a value and in a name, cut after each of their bytes
+        for (String ch : new String[]{"\u00e9", "\u20ac", "\ud83d\ude00"}) {
+            for (String doc : new String[]{"{\"a\":\"x" + ch + "y\"}", "{\"x" + ch + "\":1}"}) {
+                byte[] json = utf8(doc);
+                int at = doc.indexOf(ch);
+                for (int cut = at + 1; cut < at + utf8(ch).length; cut++) {
+                    QJsonFeeder feeder = new QJsonFeeder();
+                    feeder.feed(json, 0, cut);
+                    assertNull(feeder.parse(), doc);
+                    feeder.feed(json, cut, json.length - cut);
+                    assertSameTree(parseBytes(json), feeder.parse());
+                }
+            }
+        }
+    }
+
+    @Test
+    void truncatedInputThrows() throws IOException {
+        String[] truncated = {
+                "[1,2",
+                "[\"abc",
+                "{\"a\":",
+                "{\"a\"",
+                "{\"a",
+                "{\"a\":tr",
+                "[\"\\",
+                "{\"a\":\"x\\",
+                "[{\"a\":1}",
+        };
+        for (String doc : truncated) {
+            byte[] json = utf8(doc);
+            for (int size : new int[]{1, 3, json.length}) {
+                QJsonFeeder feeder = new QJsonFeeder();
+                for (int off = 0; off < json.length; off += size) {
+                    feeder.feed(json, off, Math.min(size, json.length - off));
+                    assertNull(feeder.parse(), doc);
+                }
+                IOException expected = assertThrows(IOException.class, () -> parseBytes(json), doc);
+                IOException e = assertThrows(IOException.class, () -> feeder.endOfInput().parse(), doc);
+                assertEquals(expected.getMessage(), e.getMessage(), doc);
+            }
+        }
+        // a UTF-8 sequence cut by the end of input
+        byte[] json = utf8("[\"\u20ac\"]");
+        QJsonFeeder feeder = new QJsonFeeder();
+        feeder.feed(json, 0, 3);
+        assertNull(feeder.parse());
+        assertThrows(IOException.class, () -> feeder.endOfInput().parse());
+    }
+
+    // every prefix ended by endOfInput(): the same tree or the same error as parseJSONBytes() of it
+    @Test
+    void everyPrefix() throws IOException {
+        for (String doc : CORPUS) {
+            byte[] full = utf8(doc);
+            for (int len = 1; len <= full.length; len++) {
+                byte[] json = Arrays.copyOf(full, len);
+                QJson expected;
+                try {
+                    expected = parseBytes(json);
+                } catch (IOException e) {
+                    IOException fed = assertThrows(IOException.class, () -> feed(json, 1), doc + " [" + len + "]");
+                    assertEquals(e.getMessage(), fed.getMessage(), doc + " [" + len + "]");
+                    continue;
+                }
+                assertSameTree(expected, feed(json, 1));
+            }
+        }
+    }
+
+    @Test
+    void tokensOneByteAtATime() throws IOException {
+        for (byte[] json : corpus()) {
+            QJsonReader reader = new QJsonReader(json, 0, json.length);
+            QJsonFeeder feeder = new QJsonFeeder();
+            int off = 0;
+            while (true) {
+                int expected = reader.nextToken();
+                int token;
+                while ((token = feeder.nextToken()) == QJsonFeeder.TOKEN_NEED_INPUT) {
+                    if (off < json.length) feeder.feed(json, off++, 1);
+                    else feeder.endOfInput();
+                }
+                assertEquals(expected, token);
+                assertEquals(reader.getDepth(), feeder.getDepth());
+                if (token == QJsonReader.TOKEN_END_DOCUMENT) break;
+                if (token >= QJsonReader.TOKEN_NAME) {
+                    assertEquals(reader.getString(), feeder.getString());
+                }
+                if (token > QJsonReader.TOKEN_NAME) {
+                    assertEquals(reader.getValue(), feeder.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void inputAfterEndOfInputThrows() throws IOException {
+        QJsonFeeder feeder = new QJsonFeeder();
+        feeder.feed(utf8("{\"a\":1}"), 0, 7);
+        assertNotNull(feeder.endOfInput().parse());
+        assertThrows(IOException.class, () -> feeder.feed(new byte[1], 0, 1));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * QJsonNumber through literal2value() and QJsonReader against the Long.valueOf()/Double.valueOf()
+ * path it replaced (literal2valueSlow()): the same value of the same class, or the same error
+ */
+class QJsonNumberTest {
+    private static final int RANDOM_LITERALS = 2000000;
+
+    private static final String[] EDGES = {
+            "0", "-0", "0.0", "-0.0", "1", "-1", "007", "-007", "0.5", "00.5",
+            "9223372036854775807", "-9223372036854775808", "9223372036854775808", "-9223372036854775809",
+            "99999999999999999999", "9007199254740993", "123456789012345", "1234567890123456",
+            "0.1", "0.3", "1.7976931348623157e308", "1.8e308", "4.9e-324", "2e-324", "1e-400",
+            "1e22", "1e23", "1e-22", "1e-23", "123456789012345e22", "1234567890123456e-22",
+            "1E5", "1e+5", "1e-5", "1.e5", ".5", "5.", "-.5", "+1", "+1.5", "1e", "1e+", "-", "+", ".", "",
+            "1f", "2D", "1.5F", "0x10", "NaN", "Infinity", "-Infinity", "1_000", "1.2.3", "--1", "1e5e5", "12a",
+    };
+
+    private static void assertSameValue(String literal) throws IOException {
+        Object expected;
+        try {
+            expected = QJson.literal2valueSlow(literal);
+        } catch (IOException e) {
+            IOException actual = assertThrows(IOException.class, () -> QJson.literal2value(literal), literal);
+            assertEquals(e.getMessage(), actual.getMessage(), literal);
+            return;
+        }
+        Object actual = QJson.literal2value(literal);
+        assertEquals(expected.getClass(), actual.getClass(), literal);
+        assertEquals(expected, actual, literal); // Double.equals() tells -0.0 from 0.0
+    }
+
+    // the number read from a document by QJsonReader, where the tokenizer takes it as a number
+    private static void assertSameRead(String literal) throws IOException {
+        Object expected = QJson.literal2valueSlow(literal);
+        QJsonReader reader = new QJsonReader("[" + literal + "]");
+        reader.nextToken();
+        assertEquals(QJsonReader.TOKEN_NUMBER, reader.nextToken(), literal);
+        Object actual = reader.getValue();
+        assertEquals(expected.getClass(), actual.getClass(), literal);
+        assertEquals(expected, actual, literal);
+    }
+
+    @Test
+    void edgeCases() throws IOException {
+        for (String literal : EDGES) {
+            assertSameValue(literal);
+        }
+    }
+
+    private static String randomLiteral(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        if (rnd.nextInt(4) == 0) sb.append('-');
+        switch (rnd.nextInt(4)) {
+            case 0: // long, near its bounds too
+                sb.append(rnd.nextBoolean() ? Long.toString(rnd.nextLong() >>> 1) : Long.toString(rnd.nextInt(1000)));
+                if (rnd.nextInt(8) == 0) sb.append(rnd.nextInt(10));
+                break;
+            case 1: // double as Java prints it
+                sb.append(Math.abs(Double.longBitsToDouble(rnd.nextLong())));
+                break;
+            default: // digits, fraction and exponent of random lengths
+                for (int i = 1 + rnd.nextInt(20); i > 0; i--) {
+                    sb.append((char) ('0' + rnd.nextInt(10)));
+                }
+                if (rnd.nextBoolean()) {
+                    sb.append('.');
+                    for (int i = 1 + rnd.nextInt(20); i > 0; i--) {
+                        sb.append((char) ('0' + rnd.nextInt(10)));
+                    }
+                }
+                if (rnd.nextBoolean()) {
+                    sb.append(rnd.nextBoolean() ? 'e' : 'E');
+                    if (rnd.nextBoolean()) sb.append(rnd.nextBoolean() ? '-' : '+');
+                    sb.append(rnd.nextInt(rnd.nextBoolean() ? 30 : 400));
+                }
+        }
+        return (sb.toString());
+    }
+
+    @Test
+    void randomLiterals() throws IOException {
+        Random rnd = new Random(9);
+        for (int i = 0; i < RANDOM_LITERALS; i++) {
+            assertSameValue(randomLiteral(rnd));
+        }
+    }
+
+    @Test
+    void readerNumbers() throws IOException {
+        Random rnd = new Random(10);
+        for (int i = 0; i < RANDOM_LITERALS / 20; i++) {
+            String literal = randomLiteral(rnd);
+            if (literal.contains("Infinity") || literal.contains("NaN")) continue; // not a json number
+            assertSameRead(literal);
+        }
+        for (String literal : new String[]{"0", "-0", "-0.0", "9223372036854775808", "1e23", "1e-400", "1.8e308"}) {
+            assertSameRead(literal);
+        }
+    }
+}
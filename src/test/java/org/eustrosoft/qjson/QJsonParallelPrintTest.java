@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QJson.setParallelPrint() and JsonParser.setParallel() against the print of one thread: the
+ * same text, char for char
+ */
+class QJsonParallelPrintTest {
+    private static final int ITEMS = 20000; // several slices of MIN_PRINT_SLICE items
+    private static final String[] TEXTS = {
+            "plain", "q\"uote", "back\\slash", "line\nbreak", "tab\t", ",]}", "\u00e9\u20ac",
+            "\u4e2d\u6587", "\ud83d\ude00", "\u043f\u0440\u0438\u0432\u0435\u0442", "",
+    };
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void startPool() {
+        pool = new ForkJoinPool(4); // new one for each test, so getPoolSize() shows that it was used
+    }
+
+    @AfterEach
+    void stopPool() {
+        QJson.setParallelPrint(null, QJson.DEFAULT_PRINT_THRESHOLD);
+        pool.shutdown();
+    }
+
+    private static String records(int n) {
+        Random rnd = new Random(n);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"name\":\"")
+                    .append(TEXTS[rnd.nextInt(TEXTS.length)].replace("\\", "\\\\").replace("\"", "\\\"")
+                            .replace("\n", "\\n").replace("\t", "\\t"))
+                    .append("\",\"score\":").append(rnd.nextDouble()).append(",\"ok\":").append(rnd.nextBoolean())
+                    .append(",\"none\":null,\"tags\":[\"a\",\"").append(TEXTS[rnd.nextInt(6)].replace("\\", "\\\\").replace("\"", "\\\"")
+                            .replace("\n", "\\n").replace("\t", "\\t"))
+                    .append("\"],\"n\":[").append(rnd.nextLong()).append(",2]}");
+        }
+        return (sb.append(']').toString());
+    }
+
+    private static QJson parse(String json) throws IOException {
+        QJson q = new QJson(json.charAt(0) == '[' ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        q.parseJSONString(json);
+        return (q);
+    }
+
+    private static String[] prints(QJson json) throws IOException {
+        StringWriter w = new StringWriter();
+        json.writeJSONString(w);
+        StringWriter w2 = new StringWriter();
+        json.writeJSONString(w2, 3);
+        return (new String[]{json.toJSONString(), json.toJSONString(0), json.toString(), w.toString(), w2.toString()});
+    }
+
+    private void assertSamePrint(QJson json) throws IOException {
+        QJson.setParallelPrint(null, QJson.DEFAULT_PRINT_THRESHOLD);
+        String[] expected = prints(json);
+        QJson.setParallelPrint(pool, 2);
+        String[] actual = prints(json);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], "print " + i);
+        }
+    }
+
+    @Test
+    void records() throws IOException {
+        QJson json = parse(records(ITEMS));
+        assertSamePrint(json);
+        assertTrue(pool.getPoolSize() > 0);
+        assertSamePrint(json.freeze());
+    }
+
+    @Test
+    void nestedArrays() throws IOException {
+        String records = records(ITEMS);
+        assertSamePrint(parse("{\"a\":" + records + ",\"b\":[" + records + "," + records + "]}"));
+        assertTrue(pool.getPoolSize() > 0);
+    }
+
+    @Test
+    void packedNumericArrays() throws IOException {
+        Random rnd = new Random(5);
+        StringBuilder longs = new StringBuilder("[");
+        StringBuilder doubles = new StringBuilder("[");
+        for (int i = 0; i < ITEMS; i++) {
+            if (i > 0) {
+                longs.append(',');
+                doubles.append(',');
+            }
+            longs.append(rnd.nextLong() >> rnd.nextInt(64));
+            doubles.append(rnd.nextDouble() * 1e6 - 5e5);
+        }
+        QJson l = parse(longs.append(']').toString());
+        QJson d = parse(doubles.append(']').toString());
+        assertTrue(l.packedItems() instanceof long[]);
+        assertTrue(d.packedItems() instanceof double[]);
+        assertSamePrint(l);
+        assertSamePrint(d);
+        assertTrue(pool.getPoolSize() > 0);
+    }
+
+    @Test
+    void rowModeAndAddedItems() throws IOException {
+        QJson row = new QJson(QJson.QJSON_TYPE_ARRAY, QJson.QJSON_PRINT_MODE_ROW);
+        for (int i = 0; i < ITEMS; i++) {
+            if (i % 3 == 0) row.addItem(TEXTS[i % TEXTS.length]);
+            else if (i % 3 == 1) row.addItem((long) i);
+            else row.addItem(parse("{\"a\":" + i + ",\"b\":[\"" + i + "\"]}"));
+        }
+        assertSamePrint(row);
+        assertTrue(pool.getPoolSize() > 0);
+    }
+
+    @Test
+    void lazyTreesPrintTheSame() throws IOException {
+        String records = records(ITEMS);
+        QJson.setParallelPrint(pool, 2);
+        assertEquals(parse(records).toJSONString(), QJson.parseJSONLazy(records).toJSONString());
+    }
+
+    // fields are read by JsonParser
+    @SuppressWarnings("unused")
+    private static final class Item {
+        private Integer id;
+        private String name;
+        private Double score;
+        private Boolean active;
+        private List<String> tags;
+        private Item child;
+
+        Item(int i, Random rnd) {
+            id = i;
+            name = TEXTS[rnd.nextInt(TEXTS.length)];
+            score = rnd.nextBoolean() ? null : rnd.nextDouble();
+            active = rnd.nextBoolean();
+            tags = Arrays.asList(TEXTS[rnd.nextInt(TEXTS.length)], "t" + i);
+            child = i > 0 && i % 7 == 0 ? new Item(-i, rnd) : null;
+        }
+    }
+
+    private static List<Object> items(int n) {
+        Random rnd = new Random(n);
+        List<Object> items = new ArrayList<Object>(n);
+        for (int i = 0; i < n; i++) {
+            switch (i % 5) {
+                case 0:
+                    items.add(TEXTS[rnd.nextInt(TEXTS.length)]);
+                    break;
+                case 1:
+                    items.add(i);
+                    break;
+                case 2:
+                    items.add(null);
+                    break;
+                default:
+                    items.add(new Item(i, rnd));
+            }
+        }
+        return (items);
+    }
+
+    private void assertSameWrite(Collection<?> collection) throws Exception {
+        JsonParser sequential = new JsonParser();
+        JsonParser parallel = new JsonParser();
+        parallel.setParallel(pool, 2);
+        String expected = sequential.parseCollection(collection);
+        assertEquals(expected, parallel.parseCollection(collection));
+        StringBuilder sb = new StringBuilder("prefix ");
+        parallel.writeCollection(collection, sb);
+        assertEquals("prefix " + expected, sb.toString());
+        StringWriter w = new StringWriter();
+        parallel.writeCollection(collection, w);
+        assertEquals(expected, w.toString());
+    }
+
+    @Test
+    void jsonParserCollections() throws Exception {
+        List<Object> items = items(ITEMS);
+        assertSameWrite(items);
+        assertTrue(pool.getPoolSize() > 0);
+        assertSameWrite(new LinkedHashSet<Object>(items.subList(0, 5000)));
+        assertSameWrite(items.subList(0, 3));
+    }
+
+    @Test
+    void jsonParserObjectWithBigCollection() throws Exception {
+        Item root = new Item(1, new Random(1));
+        List<String> tags = new ArrayList<String>();
+        for (int i = 0; i < ITEMS; i++) {
+            tags.add(TEXTS[i % TEXTS.length] + i);
+        }
+        root.tags = tags;
+        JsonParser parallel = new JsonParser();
+        parallel.setParallel(pool, 2);
+        assertEquals(new JsonParser().parseObject(root), parallel.parseObject(root));
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.eustrosoft.qjson.TestTrees.assertSameTree;
+import static org.eustrosoft.qjson.TestTrees.parseBytes;
+import static org.eustrosoft.qjson.TestTrees.utf8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * parseJSONParallel() against the sequential parse: documents over PARALLEL_THRESHOLD, cut into
+ * several slices by the scan, give the same tree and the same errors
+ */
+class QJsonParallelTest {
+    private static final int THREADS = 4;
+    // string pieces the slice scan must not take for structure: separators, brackets, escaped quotes and backslashes
+    private static final String[] PIECES = {
+            ",", "]", "}", "[", "{", ":", " ", "\\\"", "\\\\", "\\n", "\\t", "a", "xyz",
+            "\u00e9", "\u20ac", "\u4e2d\u6587", "\ud83d\ude00", "\u043f\u0440\u0438\u0432\u0435\u0442",
+    };
+    private static final String[] SPACES = {"", " ", "\n", "\n  ", "\t"};
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    private static String string(Random rnd) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = rnd.nextInt(8); i > 0; i--) {
+            sb.append(PIECES[rnd.nextInt(PIECES.length)]);
+        }
+        return (sb.append('"').toString());
+    }
+
+    private static void record(Random rnd, StringBuilder sb, int depth) {
+        sb.append("{\"id\":").append(rnd.nextInt(1000000))
+                .append(",\"s\":").append(string(rnd))
+                .append(",\"\u0438\u043c\u044f\":").append(string(rnd))
+                .append(",\"k").append(string(rnd).substring(1)).append(":").append(rnd.nextInt(3) - 1) // no empty names
+                .append(",\"x\":").append(rnd.nextDouble())
+                .append(",\"b\":").append(rnd.nextBoolean())
+                .append(",\"z\":null,\"t\":[");
+        for (int i = rnd.nextInt(4); i > 0; i--) {
+            sb.append(string(rnd)).append(i > 1 ? "," : "");
+        }
+        sb.append("],\"n\":[").append(rnd.nextLong()).append(',').append(-rnd.nextInt(100)).append(']');
+        if (depth < 2 && rnd.nextBoolean()) {
+            sb.append(",\"child\":");
+            record(rnd, sb, depth + 1);
+        }
+        sb.append('}');
+    }
+
+    // top-level array of records over PARALLEL_THRESHOLD chars, random space around items
+    private static String records(long seed) {
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < QJson.PARALLEL_THRESHOLD + 4096) {
+            if (sb.length() > 1) sb.append(',').append(SPACES[rnd.nextInt(SPACES.length)]);
+            record(rnd, sb, 0);
+        }
+        return (sb.append(']').toString());
+    }
+
+    private static String numbers(long seed, boolean doubles) {
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < QJson.PARALLEL_THRESHOLD + 4096) {
+            if (sb.length() > 1) sb.append(',');
+            if (doubles) sb.append(rnd.nextDouble() * 1000 - 500);
+            else sb.append(rnd.nextInt() >> rnd.nextInt(32));
+        }
+        return (sb.append(']').toString());
+    }
+
+    private static QJson parseString(String json) throws IOException {
+        QJson q = new QJson(QJson.QJSON_TYPE_ARRAY);
+        q.parseJSONString(json);
+        return (q);
+    }
+
+    private static int step(int length) {
+        return (Math.max(QJsonParallel.MIN_SLICE, length / (THREADS * 4)));
+    }
+
+    // the scan cuts json into several slices, so the parallel path is taken and not the fallback of one slice
+    private static void assertSliced(String json) {
+        byte[] bytes = utf8(json);
+        int[] slices = QJsonParallel.slices(bytes, 0, bytes.length, step(bytes.length));
+        assertNotNull(slices);
+        assertTrue(slices.length >= 4, "slices: " + slices.length / 2);
+        slices = QJsonParallel.slices(json, step(json.length()));
+        assertNotNull(slices);
+        assertTrue(slices.length >= 4, "slices: " + slices.length / 2);
+    }
+
+    private static void assertSameParse(String json) throws IOException {
+        byte[] bytes = utf8(json);
+        QJson expected = parseBytes(bytes);
+        // the document inside of a bigger array, as off and len give it
+        byte[] framed = new byte[bytes.length + 16];
+        Arrays.fill(framed, (byte) '}');
+        System.arraycopy(bytes, 0, framed, 7, bytes.length);
+        assertSameTree(expected, QJson.parseJSONParallel(framed, 7, bytes.length, pool));
+        assertSameTree(expected, QJson.parseJSONParallel(json, pool));
+        assertEquals(expected.toJSONString(), QJson.parseJSONParallel(json, pool).toJSONString());
+    }
+
+    private static void assertSameError(String json) {
+        byte[] bytes = utf8(json);
+        IOException expected = assertThrows(IOException.class, () -> parseBytes(bytes));
+        IOException e = assertThrows(IOException.class, () -> QJson.parseJSONParallel(bytes, 0, bytes.length, pool));
+        assertEquals(expected.getMessage(), e.getMessage());
+        expected = assertThrows(IOException.class, () -> parseString(json));
+        e = assertThrows(IOException.class, () -> QJson.parseJSONParallel(json, pool));
+        assertEquals(expected.getMessage(), e.getMessage());
+    }
+
+    @Test
+    void stringsWithSeparatorsAndEscapes() throws IOException {
+        for (long seed = 1; seed <= 3; seed++) {
+            String json = records(seed);
+            assertSliced(json);
+            assertSameParse(json);
+        }
+    }
+
+    @Test
+    void nonAsciiStrings() throws IOException {
+        Random rnd = new Random(7);
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < QJson.PARALLEL_THRESHOLD + 4096) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"\u043a\u043b\u044e\u0447\u20ac\":\"\u4e2d\u6587\ud83d\ude00").append(rnd.nextInt())
+                    .append("\u00e9\",\"\ud83c\udf89\":[\"\u0436\\\"\u0436\",\"\\\\\u20ac\"]}");
+        }
+        String json = sb.append(']').toString();
+        assertSliced(json);
+        assertSameParse(json);
+    }
+
+    @Test
+    void packedNumericArrays() throws IOException {
+        String longs = numbers(11, false);
+        String doubles = numbers(12, true);
+        assertSliced(longs);
+        assertSliced(doubles);
+        assertSameParse(longs);
+        assertSameParse(doubles);
+        assertTrue(QJson.parseJSONParallel(longs, pool).packedItems() instanceof long[]);
+        assertTrue(QJson.parseJSONParallel(doubles, pool).packedItems() instanceof double[]);
+        // a double in the last slice of longs, a long in the last slice of doubles
+        assertSameParse(longs.substring(0, longs.length() - 1) + ",0.5]");
+        assertSameParse(doubles.substring(0, doubles.length() - 1) + ",5]");
+        // a string in the last slice of numbers
+        assertSameParse(longs.substring(0, longs.length() - 1) + ",\"x\"]");
+    }
+
+    @Test
+    void lenientCases() throws IOException {
+        String json = records(21);
+        // trailing comma, and space after the last item
+        assertSameParse(json.substring(0, json.length() - 1) + ",]");
+        assertSameParse(json.substring(0, json.length() - 1) + " \n]\n");
+        // input after the top-level array is not read
+        assertSameParse(json + "]{");
+    }
+
+    @Test
+    void errorInLateSlice() {
+        String json = records(31);
+        String head = json.substring(0, json.length() - 1);
+        assertSliced(json);
+        assertSameError(head + ",{\"id\":1,\"b\":tru}]");
+        assertSameError(head + ",{\"a\":1 \"b\":2}]");
+        assertSameError(head + ",{\"a\":\"x\\q\"}]");
+        assertSameError(head + ",,{\"a\":1}]");
+        assertSameError(head + ",{\"a\":[1}]");
+    }
+
+    @Test
+    void errorInMiddleSlice() {
+        String json = records(32);
+        int middle = json.indexOf(",{\"id\"", json.length() / 2);
+        assertSameError(json.substring(0, middle) + ",@" + json.substring(middle));
+        assertSameError(json.substring(0, middle) + ",[1,2" + json.substring(middle));
+    }
+
+    @Test
+    void errorsTheScanFindsFirst() {
+        String json = records(41);
+        String head = json.substring(0, json.length() - 1);
+        assertNull(QJsonParallel.slices(head + "}", step(json.length())));
+        assertSameError(head + "}");
+        assertNull(QJsonParallel.slices(head, step(head.length())));
+        assertSameError(head);
+        assertSameError(head + ",\"never closed]");
+    }
+
+    @Test
+    void notArraysAndSmallDocuments() throws IOException {
+        assertSameParse("[1,2,{\"a\":\"]\"}]");
+        String object = "{\"a\":" + records(51) + "}";
+        byte[] bytes = utf8(object);
+        assertNull(QJsonParallel.slices(bytes, 0, bytes.length, step(bytes.length)));
+        QJson expected = parseBytes(bytes);
+        assertSameTree(expected, QJson.parseJSONParallel(bytes, 0, bytes.length, pool));
+        assertSameTree(expected, QJson.parseJSONParallel(object, pool));
+        ForkJoinPool one = new ForkJoinPool(1);
+        try {
+            String json = records(52);
+            assertSameTree(parseBytes(utf8(json)), QJson.parseJSONParallel(json, one));
+        } finally {
+            one.shutdown();
+        }
+    }
+}
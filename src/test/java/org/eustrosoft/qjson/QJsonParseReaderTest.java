@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.eustrosoft.qjson.TestTrees.assertSameTree;
+import static org.eustrosoft.qjson.TestTrees.parseBytes;
+import static org.eustrosoft.qjson.TestTrees.utf8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * parseJSONReader() reads the Reader up to the character it returns and leaves the rest of it,
+ * whether the Reader supports mark() or not
+ */
+class QJsonParseReaderTest {
+    private static final String REST = rest(20000);
+
+    private static String rest(int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return (sb.toString());
+    }
+
+    // Reader without mark()
+    private static Reader unmarked(String s) {
+        Reader r = new StringReader(s) {
+            @Override
+            public boolean markSupported() {
+                return (false);
+            }
+        };
+        assertFalse(r.markSupported());
+        return (r);
+    }
+
+    private static String readAll(Reader r) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[1000];
+        for (int n; (n = r.read(buf)) > 0; ) {
+            sb.append(buf, 0, n);
+        }
+        return (sb.toString());
+    }
+
+    private static String big() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"s\":\"x\\\"").append(i).append("\"}");
+        }
+        return (sb.append(']').toString());
+    }
+
+    private static void assertRestLeft(String doc, Reader r) throws IOException {
+        QJson q = new QJson(doc.charAt(0) == '[' ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        assertEquals('X', q.parseJSONReader(r));
+        assertSameTree(parseBytes(utf8(doc)), q);
+        assertEquals(REST, readAll(r));
+    }
+
+    @Test
+    void restOfReaderIsLeft() throws IOException {
+        for (String doc : new String[]{"{\"a\":1}", "[1,2,\"x\"]", big()}) {
+            String s = doc + "X" + REST;
+            assertRestLeft(doc, new StringReader(s));
+            assertRestLeft(doc, new BufferedReader(new StringReader(s)));
+            assertRestLeft(doc, new BufferedReader(new StringReader(s), 16));
+            assertRestLeft(doc, unmarked(s));
+        }
+    }
+
+    @Test
+    void documentsOneAfterAnother() throws IOException {
+        String doc = big();
+        for (Reader r : new Reader[]{new StringReader(doc + doc + " {\"a\":2}"), unmarked(doc + doc + " {\"a\":2}")}) {
+            QJson first = new QJson(QJson.QJSON_TYPE_ARRAY);
+            assertEquals('[', first.parseJSONReader(r, QJson.CONTEXT_GLOBAL));
+            QJson second = new QJson(QJson.QJSON_TYPE_ARRAY);
+            assertEquals(' ', second.parseJSONReader(r, QJson.CONTEXT_ARRAY)); // '[' already read
+            QJson third = new QJson();
+            assertEquals(-1, third.parseJSONReader(r));
+            assertSameTree(first, second);
+            assertEquals(2L, third.getItem("a"));
+        }
+    }
+}
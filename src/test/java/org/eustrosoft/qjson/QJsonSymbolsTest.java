@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.eustrosoft.qjson.TestTrees.assertSameTree;
+import static org.eustrosoft.qjson.TestTrees.parseBytes;
+import static org.eustrosoft.qjson.TestTrees.utf8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QJsonSymbols shared by threads stays within its capacity
+ */
+class QJsonSymbolsTest {
+    private static final int THREADS = 8;
+
+    private static int tableLength(QJsonSymbols symbols) throws ReflectiveOperationException {
+        Field f = QJsonSymbols.class.getDeclaredField("table");
+        f.setAccessible(true);
+        String[] table = (String[]) f.get(symbols);
+        return (table == null ? 0 : table.length);
+    }
+
+    // threads grow the same tables from empty to capacity, round after round
+    @Test
+    void racingInternsStayWithinCapacity() throws Exception {
+        int rounds = 2000;
+        QJsonSymbols[] tables = new QJsonSymbols[rounds];
+        for (int r = 0; r < rounds; r++) {
+            tables[r] = new QJsonSymbols(64);
+        }
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int n = 0; n < THREADS; n++) {
+            final int seed = n;
+            Thread t = new Thread(() -> {
+                try {
+                    for (QJsonSymbols symbols : tables) {
+                        barrier.await();
+                        for (int i = 0; i < 200; i++) {
+                            String name = "k" + ((i * 31 + seed * 7) % 200);
+                            String s = symbols.intern(new StringBuilder(name), name.hashCode());
+                            if (!name.equals(s)) throw (new AssertionError(name + " != " + s));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    barrier.reset();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        for (QJsonSymbols symbols : tables) {
+            assertEquals(64, tableLength(symbols));
+            assertTrue(symbols.size() <= symbols.getCapacity(), symbols.toString());
+        }
+    }
+
+    @Test
+    void parallelParseWithSharedSymbols() throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < QJson.PARALLEL_THRESHOLD + 4096; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"n").append(i % 3000).append("\":1,\"name\":\"x\"}");
+        }
+        String json = sb.append(']').toString();
+        QJsonSymbols symbols = new QJsonSymbols(64);
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        QJson.setSymbols(symbols);
+        try {
+            QJson expected = parseBytes(utf8(json));
+            for (int i = 0; i < 5; i++) {
+                assertSameTree(expected, QJson.parseJSONParallel(json, pool));
+            }
+        } finally {
+            QJson.setSymbols(null);
+            pool.shutdown();
+        }
+        assertEquals(64, tableLength(symbols));
+    }
+}
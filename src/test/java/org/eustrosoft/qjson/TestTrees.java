@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2024, Yadzuka & EustroSoft.org
+ * This file is part of RequestHandler project.
+ * See the LICENSE file at the project root for licensing information.
+ */
+
+package org.eustrosoft.qjson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Sequential parse, the reference of the other parsers, and comparison of trees
+ */
+final class TestTrees {
+    private TestTrees() {
+    }
+
+    static byte[] utf8(String json) {
+        return (json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * parseJSONBytes() into a root of the document's type
+     */
+    static QJson parseBytes(byte[] json) throws IOException {
+        QJson q = new QJson(isArray(json) ? QJson.QJSON_TYPE_ARRAY : QJson.QJSON_TYPE_OBJECT);
+        q.parseJSONBytes(json, 0, json.length);
+        return (q);
+    }
+
+    private static boolean isArray(byte[] json) {
+        for (byte b : json) {
+            if (b > ' ') return (b == '[');
+        }
+        return (false);
+    }
+
+    /**
+     * same types, names, values (and their classes) and storage of numeric arrays
+     */
+    static void assertSameTree(QJson expected, QJson actual) {
+        assertSameTree(expected, actual, "");
+    }
+
+    private static void assertSameTree(QJson expected, QJson actual, String path) {
+        assertNotNull(actual, path);
+        assertEquals(expected.getType(), actual.getType(), path + " type");
+        assertEquals(expected.size(), actual.size(), path + " size");
+        Object packed = expected.packedItems();
+        assertEquals(packed == null ? null : packed.getClass(), actual.packedItems() == null ? null : actual.packedItems().getClass(), path + " packed");
+        for (int i = 0; i < expected.size(); i++) {
+            String name = expected.nameAt(i);
+            String item = path + "/" + (name == null ? String.valueOf(i) : name);
+            assertEquals(name, actual.nameAt(i), item + " name");
+            Object e = expected.getItem(i);
+            Object a = actual.getItem(i);
+            if (e instanceof QJson) {
+                assertSameTree((QJson) e, (QJson) a, item);
+            } else if (e == null) {
+                assertSame(null, a, item);
+            } else {
+                assertEquals(e.getClass(), a == null ? null : a.getClass(), item + " class");
+                assertEquals(e, a, item);
+            }
+        }
+    }
+}